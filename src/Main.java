@@ -6,21 +6,21 @@ import java.io.InputStream;
 
 import javax.swing.SwingUtilities;
 
+import campaign.CampaignManager;
 import config.StartGUI;
 import process.ProcessManager;
+import process.StartupStats;
 import util.Globals;
 
 public class Main {
     public static void main(String[] args) {
+        long start = System.nanoTime();
         try (InputStream is = Main.class.getResourceAsStream("/Font Awesome 6 Free-Solid-900.otf")) {
             if (is == null) throw new IOException("Input stream cannot be created.");
             Font font = Font.createFont(Font.TRUETYPE_FONT, is).deriveFont(Font.PLAIN, 24f);
             GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
             ge.registerFont(font);
             Globals.iconFont = font;
-
-            // get current and past processes
-            ProcessManager.getInstance().connectProcesses();
         } catch (IOException | FontFormatException exp) {
             exp.printStackTrace();
         }
@@ -29,6 +29,12 @@ public class Main {
         SwingUtilities.invokeLater(() -> {
             StartGUI startGUI = StartGUI.getInstance();
             startGUI.init();
+            StartupStats.getInstance().recordUiShown((System.nanoTime() - start) / 1000000);
         });
+
+        // campaign results are recorded as runs end, so the campaigns are loaded before any run is reconnected
+        CampaignManager.getInstance();
+        // get current and past processes in the background; rows fill into the Process Monitor as they resolve
+        ProcessManager.getInstance().connectProcesses();
     }
 }
\ No newline at end of file
@@ -0,0 +1,319 @@
+import process.ExitReport;
+import process.StatusBoard;
+import util.Globals;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Permission;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/*
+ * Long-lived JVM of the worker pool (see process.WorkerPool) that runs TransRot in-process, one run at a time
+ * (args: <path to TransRot.jar>).
+ *
+ * On start, the worker answers on stdout whether System.exit can be trapped on its JVM (see below):
+ *   TRAP <1 or 0>
+ * Runs are read from stdin, one per line, as tab-separated fields:
+ *   RUN <launch id> <report address, or -> <stream: 1 or 0> <stdout log> <stderr log> <argument>...
+ * Each run loads TransRot.jar in a class loader of its own, so no static state is carried between runs, and its
+ * System.out and System.err write to its log files. It is reported to VTR like a run of Wrapper (see its class comment),
+ * except that its PID is its launch id, as every run of a worker shares the worker's PID, and that lines are never
+ * streamed: a run asked to stream reports UNSTREAMED at once, and VTR reads its log files. Once the run's main and
+ * every thread it started have ended, the worker answers on stdout:
+ *   DONE <launch id> <exit code>
+ *
+ * System.exit in a run ends that run rather than the worker, through a SecurityManager. From Java 18 one is only allowed
+ * with -Djava.security.manager=allow, which WorkerPool passes, and from Java 24 not at all; a worker that cannot trap
+ * exits answers TRAP 0 and is not given runs. The worker exits when stdin closes, after RUNS_PER_WORKER runs, or after a
+ * run that leaves threads behind, so nothing a run leaks builds up.
+ */
+public class Worker {
+    public static final int RUNS_PER_WORKER = 100;
+    public static final int SAMPLE_FREQ = StatusBoard.HEARTBEAT_FREQ;
+
+    // Thrown in place of System.exit inside a run
+    private static class ExitTrapped extends SecurityException {
+        final int code;
+
+        ExitTrapped(int code) {
+            super("System.exit(" + code + ")");
+            this.code = code;
+        }
+    }
+
+    private static class RunThreads extends ThreadGroup {
+        volatile Integer exitCode = null;
+
+        RunThreads(String name) {
+            super(name);
+        }
+
+        @Override
+        public void uncaughtException(Thread t, Throwable e) {
+            if (e instanceof ExitTrapped) exitCode = ((ExitTrapped) e).code;
+            else super.uncaughtException(t, e);
+        }
+    }
+
+    private static File jar;
+    private static String mainClass;
+    private static PrintStream control;
+    private static StatusBoard board;
+    private static PrintStream workerOut;
+    private static final PrintStream workerErr = System.err;
+
+    public static void main(String[] args) throws IOException {
+        jar = new File(args[0]);
+        try (JarFile jarFile = new JarFile(jar)) {
+            mainClass = jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+        }
+        control = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+        // stdout is kept for DONE answers; anything else the worker prints goes to its log
+        workerOut = workerErr;
+        System.setOut(workerOut);
+        control.println("TRAP\t" + (trapExits() ? 1 : 0));
+        File pidsDir = new File(Globals.pidsPath);
+        if (!pidsDir.exists()) pidsDir.mkdir();
+        board = StatusBoard.open(new File(Globals.statusBoardPath));
+        warmUp();
+
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        for (int runs = 0; runs < RUNS_PER_WORKER; runs++) {
+            String line = commands.readLine();
+            if (line == null) break;
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 6 || !fields[0].equals("RUN")) continue;
+            long id = Long.parseLong(fields[1]);
+            boolean clean = run(id, fields[2], fields[3].equals("1"), new File(fields[4]), new File(fields[5]), Arrays.copyOfRange(fields, 6, fields.length));
+            if (!clean) break;
+        }
+        System.exit(0);
+    }
+
+    // SecurityManager is deprecated for removal, but nothing else stops System.exit in a run from ending the worker
+    @SuppressWarnings("removal")
+    private static boolean trapExits() {
+        try {
+            System.setSecurityManager(new SecurityManager() {
+                @Override
+                public void checkExit(int status) {
+                    if (Thread.currentThread().getThreadGroup() instanceof RunThreads) throw new ExitTrapped(status);
+                }
+
+                @Override
+                public void checkPermission(Permission perm) {
+                    // everything else is allowed, as it is for a run in its own JVM
+                }
+            });
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            workerErr.println("System.exit cannot be trapped on this JVM; the worker is not used");
+            return false;
+        }
+    }
+
+    private static void warmUp() {
+        // Loads (without initialising) every class of the jar once, so the JDK's class loading and jar reading paths
+        // are compiled before the first run; the loader is then dropped
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, ClassLoader.getPlatformClassLoader());
+             JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class") || name.contains("-")) continue;
+                try {
+                    Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, loader);
+                } catch (ClassNotFoundException | LinkageError ignored) {}
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean run(long id, String reportAddress, boolean stream, File stdoutFile, File stderrFile, String[] args) throws IOException {
+        // Returns false if the run left threads running, so the worker should not be reused
+        long pid = ProcessHandle.current().pid();
+        resetMaxRss();
+        long start = System.currentTimeMillis();
+        long cpuStart = cpuMillis(0);
+        StatusBoard.Slot slot = board == null ? null : board.claim(pid, id);
+        Report report = new Report(reportAddress, id);
+        report.send("PID\t" + id);
+        if (stream) report.send("UNSTREAMED");
+
+        RunThreads group = new RunThreads("run-" + id);
+        int code;
+        try (FileOutputStream out = new FileOutputStream(stdoutFile); FileOutputStream err = new FileOutputStream(stderrFile);
+             URLClassLoader loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, ClassLoader.getPlatformClassLoader())) {
+            PrintStream runOut = new PrintStream(new FirstLine(out, start, report, slot), true);
+            PrintStream runErr = new PrintStream(err, true);
+            System.setOut(runOut);
+            System.setErr(runErr);
+            int[] mainCode = {0};
+            Thread main = new Thread(group, () -> mainCode[0] = invokeMain(loader, args, group, runErr), "main");
+            main.setContextClassLoader(loader);
+            main.start();
+
+            // the run is over when its main has returned and its other non-daemon threads have ended, as for a JVM
+            while (group.exitCode == null && (main.isAlive() || hasLiveThreads(group, false))) {
+                try {
+                    main.join(SAMPLE_FREQ);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (slot != null) slot.update((cpuMillis(cpuStart) - cpuStart) * 1_000_000, Wrapper.readMaxRss(pid));
+            }
+            code = group.exitCode != null ? group.exitCode : mainCode[0];
+            runOut.flush();
+            runErr.flush();
+        } finally {
+            System.setOut(workerOut);
+            System.setErr(workerErr);
+        }
+
+        ExitReport exit = new ExitReport(code, System.currentTimeMillis() - start, cpuMillis(cpuStart) - cpuStart, Wrapper.readMaxRss(pid));
+        exit.write(new File(Globals.pidsPath, id + ".exit"));
+        if (slot != null) slot.exited(code);
+        report.send("EXIT\t" + exit.format());
+        report.close();
+        boolean clean = !hasLiveThreads(group, true);
+        control.println("DONE\t" + id + "\t" + code);
+        return clean;
+    }
+
+    private static int invokeMain(ClassLoader loader, String[] args, RunThreads group, PrintStream err) {
+        // Exit code as the run's own JVM would give it: 0, the code passed to System.exit, or 1 for an uncaught exception
+        try {
+            Method main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+            return 0;
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof ExitTrapped) {
+                // System.exit ends the run without waiting for its other threads
+                group.exitCode = ((ExitTrapped) e.getCause()).code;
+                return group.exitCode;
+            }
+            err.print("Exception in thread \"main\" ");
+            e.getCause().printStackTrace(err);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            err.println("Error: could not run " + mainClass + " from " + jar);
+            e.printStackTrace(err);
+        }
+        return 1;
+    }
+
+    private static boolean hasLiveThreads(ThreadGroup group, boolean daemons) {
+        Thread[] threads = new Thread[group.activeCount() + 8];
+        int n = group.enumerate(threads, true);
+        for (int i = 0; i < n; i++) {
+            if (threads[i].isAlive() && (daemons || !threads[i].isDaemon())) return true;
+        }
+        return false;
+    }
+
+    private static long cpuMillis(long fallback) {
+        return ProcessHandle.current().info().totalCpuDuration().map(Duration::toMillis).orElse(fallback);
+    }
+
+    private static void resetMaxRss() {
+        // Linux resets the peak RSS (VmHWM) to the current RSS, so each run's report has its own peak
+        try {
+            Files.write(Paths.get("/proc/self/clear_refs"), "5".getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | UnsupportedOperationException ignored) {}
+    }
+
+    // Run's stdout: written to its log file, with the first complete line reported as OUTPUT
+    private static class FirstLine extends OutputStream {
+        private final FileOutputStream out;
+        private final long start;
+        private final Report report;
+        private final StatusBoard.Slot slot;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private boolean reported = false;
+
+        FirstLine(FileOutputStream out, long start, Report report, StatusBoard.Slot slot) {
+            this.out = out;
+            this.start = start;
+            this.report = report;
+            this.slot = slot;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] buf, int off, int len) throws IOException {
+            out.write(buf, off, len);
+            long lines = 0;
+            for (int i = off; i < off + len; i++) {
+                if (buf[i] != '\n') {
+                    if (!reported) line.write(buf[i]);
+                    continue;
+                }
+                lines++;
+                if (reported) continue;
+                String text = line.toString(StandardCharsets.UTF_8);
+                if (text.endsWith("\r")) text = text.substring(0, text.length() - 1);
+                report.send("OUTPUT\t" + (System.currentTimeMillis() - start) + "\t" + text);
+                if (slot != null) slot.setPhase(StatusBoard.PHASE_RUNNING);
+                reported = true;
+            }
+            if (slot != null && lines > 0) slot.addOutputLines(lines);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    // Connection to VTR's launch reports for one run; VTR may have exited, in which case nothing is sent
+    private static class Report {
+        private Socket socket = null;
+        private OutputStream out = null;
+
+        Report(String address, long id) {
+            if (address.equals("-")) return;
+            try {
+                String[] parts = address.split(":");
+                socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(parts[0]));
+                socket.setTcpNoDelay(true);
+                out = socket.getOutputStream();
+                send("HELLO\t" + parts[1] + "\t" + id);
+            } catch (IOException | RuntimeException e) {
+                out = null;
+            }
+        }
+
+        synchronized void send(String line) {
+            if (out == null) return;
+            try {
+                out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                out = null;
+            }
+        }
+
+        void close() {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
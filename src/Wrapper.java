@@ -1,55 +1,229 @@
-//
-// Source code recreated from a .class file by IntelliJ IDEA
-// (powered by FernFlower decompiler)
-//
-
+import process.ExitReport;
+import process.StatusBoard;
 import util.Globals;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.net.URL;
-import java.net.URLDecoder;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/*
+ * Launches a TransRot run (args: <launch id> <command>...) and stays alive until it exits.
+ *
+ * When VTR_REPORT=<port>:<token> is set, the run is reported to VTR over a loopback socket as tab-separated lines:
+ *   HELLO <token> <launch id>
+ *   PID <child pid>
+ *   OUTPUT <ms from child start> <first stdout line>
+ *   LINE out|err <offset in log file> <text>     (only with VTR_STREAM set)
+ *   UNSTREAMED                                   (LINE reports stopped; the rest is only in the log files)
+ *   EXIT <code> <wall ms> <cpu ms> <max rss kB>
+ * The child's stdout (and with VTR_STREAM, its stderr) is piped through this process, which writes it on to the
+ * log files itself, so its first line can be reported as soon as it is written.
+ * The exit report is also written to pids/<launch id>.exit, for when VTR is not running at the time, and the
+ * run's live state is published to a slot of the StatusBoard throughout.
+ * Without VTR_REPORT, only the child's PID is written, to pids/<launch id>.tmp.
+ */
 public class Wrapper {
-    public Wrapper() {
-    }
+    public static final int MIN_SAMPLE_FREQ = 50;
+    public static final int SAMPLE_FREQ = StatusBoard.HEARTBEAT_FREQ;
+    // Lines waiting to be streamed; if VTR falls this far behind, streaming stops rather than stalling the run
+    public static final int STREAM_QUEUE = 10000;
+    private static final String STREAM_END = "";
 
-    public static void main(String[] args) throws IOException {
+    private static OutputStream report = null;
+    private static final BlockingQueue<String> streamQueue = new LinkedBlockingQueue<>(STREAM_QUEUE);
+    private static volatile boolean streaming = false;
+    private static StatusBoard.Slot slot = null;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
         String id = args[0];
-        List<String> procArgs = ((List)Arrays.stream(args).collect(Collectors.toList())).subList(1, args.length);
-        ProcessBuilder pb = (new ProcessBuilder(procArgs.subList(0, procArgs.size()))).inheritIO();
+        List<String> procArgs = Arrays.asList(args).subList(1, args.length);
+        File pidsDir = new File(Globals.pidsPath);
+        if (!pidsDir.exists()) pidsDir.mkdir();
+
+        String reportAddress = System.getenv("VTR_REPORT");
+        streaming = reportAddress != null && System.getenv("VTR_STREAM") != null;
+        ProcessBuilder pb = new ProcessBuilder(procArgs).inheritIO();
+        if (reportAddress != null) pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+        if (streaming) pb.redirectError(ProcessBuilder.Redirect.PIPE);
         Process p = pb.start();
+        long childStart = System.currentTimeMillis();
         long pid = p.pid();
-        URL url = Globals.class.getProtectionDomain().getCodeSource().getLocation();
-        File parentDir = new File(new File(URLDecoder.decode(url.getFile(), StandardCharsets.UTF_8.name())).getParent(), "pids");
-        if (!parentDir.exists()) {
-            parentDir.mkdir();
+
+        if (reportAddress == null) {
+            try (FileWriter writer = new FileWriter(new File(pidsDir, id + ".tmp"))) {
+                writer.write(pid + "");
+            }
+            return;
+        }
+
+        StatusBoard board = StatusBoard.open(new File(Globals.statusBoardPath));
+        if (board != null) slot = board.claim(pid, Long.parseLong(id));
+        connect(reportAddress, id);
+        send("PID\t" + pid);
+
+        Thread tee = new Thread(() -> tee(p.getInputStream(), FileDescriptor.out, false, childStart));
+        tee.start();
+        Thread teeErr = null;
+        Thread sender = null;
+        if (streaming) {
+            teeErr = new Thread(() -> tee(p.getErrorStream(), FileDescriptor.err, true, childStart));
+            teeErr.start();
+            sender = new Thread(Wrapper::sendStream);
+            sender.start();
+        }
+
+        // CPU time and peak memory can't be read once the child has exited, so they are sampled while it runs
+        long cpuMillis = 0;
+        long maxRssKb = -1;
+        // Sampling starts fast so that runs which fail early still get figures, then backs off to SAMPLE_FREQ
+        ProcessHandle handle = p.toHandle();
+        long interval = MIN_SAMPLE_FREQ;
+        while (!p.waitFor(interval, TimeUnit.MILLISECONDS)) {
+            cpuMillis = handle.info().totalCpuDuration().map(Duration::toMillis).orElse(cpuMillis);
+            maxRssKb = Math.max(maxRssKb, readMaxRss(pid));
+            if (slot != null) slot.update(cpuMillis * 1_000_000, maxRssKb);
+            interval = Math.min(interval * 2, SAMPLE_FREQ);
+        }
+        long wallMillis = System.currentTimeMillis() - childStart;
+        tee.join();
+        if (teeErr != null) teeErr.join();
+        if (sender != null) {
+            // every line is sent before the exit report
+            streamQueue.put(STREAM_END);
+            sender.join();
+        }
+
+        ExitReport exit = new ExitReport(p.exitValue(), wallMillis, cpuMillis, maxRssKb);
+        exit.write(new File(pidsDir, id + ".exit"));
+        if (slot != null) slot.exited(p.exitValue());
+        send("EXIT\t" + exit.format());
+        System.exit(p.exitValue());
+    }
+
+    private static void tee(InputStream in, FileDescriptor fd, boolean stderr, long childStart) {
+        // Copies one of the child's streams through unchanged, reporting the first stdout line once it is complete
+        // and, when streaming, every line with the offset at which it was written
+        FileOutputStream out = new FileOutputStream(fd);
+        FileChannel channel = out.getChannel();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        boolean reported = stderr;
+        long written = 0;
+        long lineStart = -1;
+        byte[] buf = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                // the log file is shared with anything else this process writes, so offsets come from the file itself
+                long base = written;
+                try {
+                    base = channel.position();
+                } catch (IOException ignored) {}
+                out.write(buf, 0, n);
+                out.flush();
+                written = base + n;
+                long lines = 0;
+                for (int i = 0; i < n; i++) {
+                    if (lineStart < 0) lineStart = base + i;
+                    if (buf[i] != '\n') {
+                        if (streaming || !reported) line.write(buf[i]);
+                        continue;
+                    }
+                    lines++;
+                    String text = line.toString(StandardCharsets.UTF_8);
+                    if (text.endsWith("\r")) text = text.substring(0, text.length() - 1);
+                    if (!reported) {
+                        send("OUTPUT\t" + (System.currentTimeMillis() - childStart) + "\t" + text);
+                        if (slot != null) slot.setPhase(StatusBoard.PHASE_RUNNING);
+                        reported = true;
+                    }
+                    stream("LINE\t" + (stderr ? "err" : "out") + "\t" + lineStart + "\t" + text);
+                    line.reset();
+                    lineStart = -1;
+                }
+                if (slot != null && lines > 0 && !stderr) slot.addOutputLines(lines);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
-        File file = new File(parentDir, id + ".tmp");
-        if (!file.exists()) {
-            file.createNewFile();
+    private static void stream(String message) {
+        if (!streaming) return;
+        if (streamQueue.offer(message)) return;
+        // VTR is not keeping up; it goes back to reading the log files from the last line it was sent
+        streaming = false;
+        try {
+            streamQueue.put("UNSTREAMED");
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+    }
 
-        FileWriter writer = new FileWriter(file);
+    private static void sendStream() {
+        // Runs on its own thread so that a slow VTR never blocks the child's output pipes
+        List<String> batch = new ArrayList<>();
+        try {
+            while (true) {
+                // whatever has queued up meanwhile goes out in the same write
+                batch.add(streamQueue.take());
+                streamQueue.drainTo(batch);
+                StringBuilder sb = new StringBuilder();
+                boolean end = false;
+                for (String message : batch) {
+                    if (message == STREAM_END) end = true;
+                    else sb.append(sb.length() > 0 ? "\n" : "").append(message);
+                }
+                batch.clear();
+                if (sb.length() > 0) send(sb.toString());
+                if (end) return;
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
 
+    static long readMaxRss(long pid) {
+        // VmHWM is the peak resident set size on Linux; other platforms report -1
         try {
-            writer.write(pid + "");
-        } catch (Throwable var13) {
-            try {
-                writer.close();
-            } catch (Throwable var12) {
-                var13.addSuppressed(var12);
+            for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmHWM:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
             }
+        } catch (IOException | NumberFormatException ignored) {}
+        return -1;
+    }
 
-            throw var13;
+    private static void connect(String address, String id) {
+        try {
+            String[] parts = address.split(":");
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(parts[0]));
+            // reports are small and latency-sensitive, so they are not held back to be coalesced
+            socket.setTcpNoDelay(true);
+            report = socket.getOutputStream();
+            send("HELLO\t" + parts[1] + "\t" + id);
+        } catch (IOException | RuntimeException e) {
+            // VTR may have closed since launching this run; the exit file still records the result
+            report = null;
         }
+    }
 
-        writer.close();
+    private static synchronized void send(String line) {
+        if (report == null) return;
+        try {
+            report.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            report.flush();
+        } catch (IOException e) {
+            report = null;
+        }
     }
 }
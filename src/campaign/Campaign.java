@@ -0,0 +1,143 @@
+package campaign;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+
+// A group of queued runs submitted together: one config per point, each run some number of times (replicas)
+public class Campaign {
+    public static class Point {
+        private final int index;
+        private final String label;
+        private final File config;
+
+        Point(int index, String label, File config) {
+            this.index = index;
+            this.label = label;
+            this.config = config;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        // What distinguishes the point, e.g. the swept values
+        public String getLabel() {
+            return label;
+        }
+
+        public File getConfig() {
+            return config;
+        }
+    }
+
+    public static class Run {
+        private final String name;
+        private final int point;
+        private final int replica;
+
+        Run(String name, int point, int replica) {
+            this.name = name;
+            this.point = point;
+            this.replica = replica;
+        }
+
+        // The run's process name, by which its process is found in the Process Monitor
+        public String getName() {
+            return name;
+        }
+
+        public int getPoint() {
+            return point;
+        }
+
+        public int getReplica() {
+            return replica;
+        }
+    }
+
+    private final long id;
+    private final String name;
+    private final String description;
+    private final List<Point> points;
+    private final List<Run> runs;
+
+    Campaign(long id, String name, String description, List<Point> points, List<Run> runs) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.points = Collections.unmodifiableList(points);
+        this.runs = Collections.unmodifiableList(runs);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Timestamp getCreated() {
+        return new Timestamp(id);
+    }
+
+    public List<Point> getPoints() {
+        return points;
+    }
+
+    public List<Run> getRuns() {
+        return runs;
+    }
+
+    void save(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("id", String.valueOf(id));
+        properties.setProperty("name", name);
+        properties.setProperty("description", description);
+        properties.setProperty("points", String.valueOf(points.size()));
+        for (Point point : points) {
+            properties.setProperty("point." + point.index + ".label", point.label);
+            properties.setProperty("point." + point.index + ".config", point.config.getName());
+        }
+        properties.setProperty("runs", String.valueOf(runs.size()));
+        for (int i = 0; i < runs.size(); i++) {
+            Run run = runs.get(i);
+            properties.setProperty("run." + i + ".name", run.name);
+            properties.setProperty("run." + i + ".point", String.valueOf(run.point));
+            properties.setProperty("run." + i + ".replica", String.valueOf(run.replica));
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            properties.store(writer, "Campaign");
+        }
+    }
+
+    static Campaign load(File file) throws IOException {
+        // Config files are looked up next to the campaign file
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            List<Point> points = new ArrayList<>();
+            int pointCount = Integer.parseInt(properties.getProperty("points", "0"));
+            for (int i = 0; i < pointCount; i++) {
+                points.add(new Point(i, properties.getProperty("point." + i + ".label", ""), new File(file.getParentFile(), properties.getProperty("point." + i + ".config", ""))));
+            }
+            List<Run> runs = new ArrayList<>();
+            int runCount = Integer.parseInt(properties.getProperty("runs", "0"));
+            for (int i = 0; i < runCount; i++) {
+                runs.add(new Run(properties.getProperty("run." + i + ".name", ""), Integer.parseInt(properties.getProperty("run." + i + ".point", "0")),
+                        Integer.parseInt(properties.getProperty("run." + i + ".replica", "0"))));
+            }
+            return new Campaign(Long.parseLong(properties.getProperty("id")), properties.getProperty("name", ""), properties.getProperty("description", ""), points, runs);
+        } catch (NumberFormatException e) {
+            throw new IOException("Damaged campaign file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package campaign;
+
+import process.RefreshScheduler;
+import util.Globals;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Progress and best energies of every campaign, with the points of the selected one
+public class CampaignGUI extends JFrame {
+
+    private static CampaignGUI Instance;
+
+    public static CampaignGUI getInstance() {
+        if (Instance == null) Instance = new CampaignGUI();
+        return Instance;
+    }
+
+    static String formatEnergy(Double energy) {
+        return energy == null ? "" : String.format("%.5f", energy);
+    }
+
+    private static class CampaignTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Campaign", "Created", "Runs", "Queued", "Running", "Finished", "Failed", "Best Energy"};
+        private List<Campaign> campaigns = new ArrayList<>();
+        private List<CampaignManager.Progress> progress = new ArrayList<>();
+
+        @Override
+        public int getRowCount() {
+            return campaigns.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Campaign campaign = campaigns.get(row);
+            CampaignManager.Progress p = progress.get(row);
+            switch (column) {
+                case 0:
+                    return campaign.getName();
+                case 1:
+                    return Globals.getDatetime(campaign.getCreated());
+                case 2:
+                    return campaign.getRuns().size();
+                case 3:
+                    return p.getQueued();
+                case 4:
+                    return p.getRunning() + p.getStarting();
+                case 5:
+                    return p.getFinished();
+                case 6:
+                    return p.getFailed();
+                default:
+                    return formatEnergy(p.getBestEnergy());
+            }
+        }
+
+        void update(List<Campaign> campaigns, List<CampaignManager.Progress> progress) {
+            // Rows only move when a campaign is added or removed, so the selection survives a refresh otherwise
+            boolean sameRows = campaigns.equals(this.campaigns);
+            this.campaigns = campaigns;
+            this.progress = progress;
+            if (sameRows && !campaigns.isEmpty()) fireTableRowsUpdated(0, campaigns.size() - 1);
+            else if (!sameRows) fireTableDataChanged();
+        }
+    }
+
+    private static class PointTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Point", "Settings", "Runs Ended", "Best Energy"};
+        private Campaign campaign = null;
+        private CampaignManager.Progress progress = null;
+
+        @Override
+        public int getRowCount() {
+            return campaign == null ? 0 : campaign.getPoints().size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? Integer.class : Object.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Campaign.Point point = campaign.getPoints().get(row);
+            int replicas = campaign.getRuns().size() / Math.max(1, campaign.getPoints().size());
+            switch (column) {
+                case 0:
+                    return point.getIndex() + 1;
+                case 1:
+                    return point.getLabel();
+                case 2:
+                    return progress.getPointEnded(point.getIndex()) + " / " + replicas;
+                default:
+                    return formatEnergy(progress.getPointBest(point.getIndex()));
+            }
+        }
+
+        void update(Campaign campaign, CampaignManager.Progress progress) {
+            boolean sameRows = campaign == this.campaign;
+            this.campaign = campaign;
+            this.progress = progress;
+            if (sameRows && getRowCount() > 0) fireTableRowsUpdated(0, getRowCount() - 1);
+            else if (!sameRows) fireTableDataChanged();
+        }
+    }
+
+    private final CampaignTableModel campaignModel = new CampaignTableModel();
+    private final PointTableModel pointModel = new PointTableModel();
+    private final JTable campaignTable;
+    private final JLabel detailLabel;
+    private final Timer refreshTimer;
+
+    private CampaignGUI() {
+        super("Campaigns");
+
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+
+        JPanel contentPane = new JPanel();
+        contentPane.setLayout(new BoxLayout(contentPane, BoxLayout.Y_AXIS));
+        contentPane.setBackground(Globals.menuBgColorLight);
+        contentPane.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+
+        campaignTable = createTable(campaignModel);
+        campaignTable.getColumnModel().getColumn(0).setPreferredWidth(180);
+        campaignTable.getColumnModel().getColumn(1).setPreferredWidth(180);
+        campaignTable.setPreferredScrollableViewportSize(new Dimension(820, 150));
+        campaignTable.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) refresh();
+        });
+        contentPane.add(new JScrollPane(campaignTable));
+
+        detailLabel = new JLabel(" ");
+        detailLabel.setFont(Globals.settingsFontNoBold);
+        detailLabel.setBorder(BorderFactory.createEmptyBorder(8, 0, 8, 0));
+        detailLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        contentPane.add(detailLabel);
+
+        JTable pointTable = createTable(pointModel);
+        TableRowSorter<PointTableModel> sorter = new TableRowSorter<>(pointModel);
+        // energies sort numerically, with points that have none last
+        sorter.setComparator(3, Comparator.comparing((String s) -> s.isEmpty() ? Double.MAX_VALUE : Double.parseDouble(s)));
+        pointTable.setRowSorter(sorter);
+        pointTable.getColumnModel().getColumn(0).setPreferredWidth(50);
+        pointTable.getColumnModel().getColumn(1).setPreferredWidth(520);
+        pointTable.setPreferredScrollableViewportSize(new Dimension(820, 250));
+        contentPane.add(new JScrollPane(pointTable));
+
+        JPanel btnPanel = new JPanel(new BorderLayout());
+        btnPanel.setOpaque(false);
+        btnPanel.setBorder(BorderFactory.createEmptyBorder(12, 0, 0, 0));
+        JButton deleteBtn = new JButton("Delete Campaign");
+        deleteBtn.addActionListener(e -> {
+            Campaign campaign = getSelected();
+            if (campaign == null) return;
+            int res = JOptionPane.showConfirmDialog(this, "Delete campaign '" + campaign.getName() + "' and cancel its queued runs? Runs that have started are kept.",
+                    "Delete Campaign", JOptionPane.OK_CANCEL_OPTION);
+            if (res != JOptionPane.OK_OPTION) return;
+            CampaignManager.getInstance().remove(campaign);
+            refresh();
+        });
+        btnPanel.add(deleteBtn, BorderLayout.EAST);
+        contentPane.add(btnPanel);
+
+        setContentPane(contentPane);
+        pack();
+        setLocationRelativeTo(getParent());
+
+        refreshTimer = new Timer(RefreshScheduler.TICK_FREQ, e -> refresh());
+
+        // Close window on ESC
+        getRootPane().registerKeyboardAction(e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+
+    private static JTable createTable(AbstractTableModel model) {
+        JTable table = new JTable(model);
+        table.setFont(Globals.settingsFontNoBold);
+        table.setRowHeight(24);
+        table.setGridColor(Globals.accentColorDark);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setFont(Globals.settingsFont);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        return table;
+    }
+
+    @Override
+    public void setVisible(boolean b) {
+        // only refreshed while shown
+        if (b) {
+            refresh();
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        super.setVisible(b);
+    }
+
+    private Campaign getSelected() {
+        int row = campaignTable.getSelectedRow();
+        return row == -1 ? null : campaignModel.campaigns.get(row);
+    }
+
+    private void refresh() {
+        CampaignManager manager = CampaignManager.getInstance();
+        List<Campaign> campaigns = manager.getCampaigns();
+        List<CampaignManager.Progress> progress = new ArrayList<>();
+        for (Campaign campaign : campaigns) progress.add(manager.getProgress(campaign));
+        Campaign selected = getSelected();
+        campaignModel.update(campaigns, progress);
+        int row = selected == null ? (campaigns.isEmpty() ? -1 : 0) : campaigns.indexOf(selected);
+        if (row != -1 && campaignTable.getSelectedRow() != row) {
+            // selecting refreshes again, through the selection listener
+            campaignTable.setRowSelectionInterval(row, row);
+            return;
+        }
+        if (row == -1) {
+            pointModel.update(null, null);
+            detailLabel.setText(" ");
+            return;
+        }
+        Campaign campaign = campaigns.get(row);
+        CampaignManager.Progress p = progress.get(row);
+        pointModel.update(campaign, p);
+        int total = campaign.getRuns().size();
+        detailLabel.setText(String.format("%s  |  %d of %d runs ended (%.0f%%)%s", campaign.getDescription(), p.getEnded(), total, 100.0 * p.getEnded() / Math.max(1, total),
+                p.getBestRun() == null ? "" : "  |  best: " + p.getBestRun()));
+    }
+}
@@ -0,0 +1,323 @@
+package campaign;
+
+import config.ConfigWriter;
+import process.ProcessManager;
+import process.ProcessStruct;
+import process.ProcessTasks;
+import process.RunQueue;
+import util.Globals;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+ * Keeps every campaign under campaigns/<id>/: campaign.properties describes its points and runs, point_<n>.txt is the
+ * config of each point, and results.properties records the status and lowest energy of each run once it has ended,
+ * so results outlive the runs being dismissed from the Process Monitor. Results are recorded as runs end or are
+ * dismissed, whether or not the Campaign window is open; the manager must be created before runs are reconnected.
+ */
+public class CampaignManager {
+    public static final int RESULT_DELAY = 2000;
+    private static final Pattern ENERGY = Pattern.compile("Energy:\\s*(-?[0-9]*\\.?[0-9]+(?:[eE][-+]?[0-9]+)?)");
+
+    public interface ArgumentBuilder {
+        // TransRot arguments for one point; throws IllegalStateException with a message for the user
+        List<String> build(String configPath, Map<String, Object> settings, Map<String, Integer> molCounts);
+    }
+
+    public static class PointSpec {
+        private final String label;
+        private final Map<String, Object> settings;
+        private final Map<String, Integer> molCounts;
+
+        public PointSpec(String label, Map<String, Object> settings, Map<String, Integer> molCounts) {
+            this.label = label;
+            this.settings = settings;
+            this.molCounts = molCounts;
+        }
+    }
+
+    public static class Progress {
+        private int queued = 0;
+        private int starting = 0;
+        private int running = 0;
+        private int finished = 0;
+        private int failed = 0;
+        private Double bestEnergy = null;
+        private String bestRun = null;
+        // lowest energy and ended runs per point index
+        private final Map<Integer, Double> pointBest = new HashMap<>();
+        private final Map<Integer, Integer> pointEnded = new HashMap<>();
+
+        public int getQueued() {
+            return queued;
+        }
+
+        // Admitted by the queue, but not yet named in the Process Monitor
+        public int getStarting() {
+            return starting;
+        }
+
+        public int getRunning() {
+            return running;
+        }
+
+        public int getFinished() {
+            return finished;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getEnded() {
+            return finished + failed;
+        }
+
+        // Lowest energy written by any finished run, or null
+        public Double getBestEnergy() {
+            return bestEnergy;
+        }
+
+        public String getBestRun() {
+            return bestRun;
+        }
+
+        public Double getPointBest(int point) {
+            return pointBest.get(point);
+        }
+
+        public int getPointEnded(int point) {
+            return pointEnded.getOrDefault(point, 0);
+        }
+    }
+
+    private static CampaignManager Instance = null;
+
+    public static synchronized CampaignManager getInstance() {
+        if (Instance == null)
+            Instance = new CampaignManager();
+        return Instance;
+    }
+
+    private final File dir = new File(Globals.campaignDir);
+    private final Map<Long, Campaign> campaigns = new ConcurrentHashMap<>();
+    private final Map<Long, Properties> results = new ConcurrentHashMap<>();
+    // Runs whose results are being read in the background
+    private final Set<String> reading = ConcurrentHashMap.newKeySet();
+
+    private CampaignManager() {
+        ProcessManager.getInstance().addRunEndListener(this::runEnded);
+        File[] campaignDirs = dir.listFiles(File::isDirectory);
+        if (campaignDirs == null) return;
+        for (File campaignDir : campaignDirs) {
+            File file = new File(campaignDir, "campaign.properties");
+            if (!file.exists()) continue;
+            try {
+                Campaign campaign = Campaign.load(file);
+                campaigns.put(campaign.getId(), campaign);
+                results.put(campaign.getId(), loadResults(campaign));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Newest first
+    public List<Campaign> getCampaigns() {
+        return campaigns.values().stream().sorted(Comparator.comparingLong(Campaign::getId).reversed()).collect(Collectors.toList());
+    }
+
+    public boolean nameExists(String name) {
+        return campaigns.values().stream().anyMatch(c -> c.getName().equalsIgnoreCase(name));
+    }
+
+    public Campaign submit(String name, String description, List<PointSpec> specs, int replicas, RunQueue.Priority priority, ArgumentBuilder arguments) throws IOException {
+        // Every point is checked before anything is written or queued; runs are queued one replica of every point
+        // at a time, so early results cover the whole campaign
+        if (name.isEmpty() || nameExists(name)) throw new IllegalStateException("Campaign name is empty or not unique.");
+        if (specs.isEmpty() || replicas < 1) throw new IllegalStateException("The campaign has no runs.");
+        for (int r = 1; r <= replicas; r++) {
+            for (int i = 1; i <= specs.size(); i++) {
+                if (ProcessManager.getInstance().nameExists(runName(name, i, r))) throw new IllegalStateException("A run named " + runName(name, i, r) + " already exists.");
+            }
+        }
+        long id = System.currentTimeMillis();
+        while (campaigns.containsKey(id)) id++;
+        File campaignDir = new File(dir, String.valueOf(id));
+        if (!campaignDir.mkdirs()) throw new IOException("Cannot create " + campaignDir);
+
+        List<Campaign.Point> points = new ArrayList<>();
+        List<List<String>> pointArguments = new ArrayList<>();
+        try {
+            for (int i = 0; i < specs.size(); i++) {
+                PointSpec spec = specs.get(i);
+                File config = new File(campaignDir, "point_" + (i + 1) + ".txt");
+                pointArguments.add(arguments.build(config.getPath(), spec.settings, spec.molCounts));
+                ConfigWriter.write(config, spec.settings, spec.molCounts);
+                points.add(new Campaign.Point(i, spec.label, config));
+            }
+        } catch (IllegalStateException | IOException e) {
+            deleteDir(campaignDir);
+            throw e;
+        }
+        List<Campaign.Run> runs = new ArrayList<>();
+        for (int r = 1; r <= replicas; r++) {
+            for (int i = 0; i < points.size(); i++) runs.add(new Campaign.Run(runName(name, i + 1, r), i, r));
+        }
+        Campaign campaign = new Campaign(id, name, description, points, runs);
+        campaign.save(new File(campaignDir, "campaign.properties"));
+        campaigns.put(id, campaign);
+        results.put(id, new Properties());
+
+        Map<String, List<String>> queued = new LinkedHashMap<>();
+        for (Campaign.Run run : runs) queued.put(run.getName(), pointArguments.get(run.getPoint()));
+        RunQueue.getInstance().submitAll(priority, queued);
+        return campaign;
+    }
+
+    private static String runName(String campaign, int point, int replica) {
+        return campaign + "-p" + point + "-r" + replica;
+    }
+
+    public void remove(Campaign campaign) {
+        // Queued runs are cancelled; runs already started, and their output, are left as they are
+        Set<String> names = campaign.getRuns().stream().map(Campaign.Run::getName).collect(Collectors.toSet());
+        for (RunQueue.QueuedRun run : RunQueue.getInstance().getQueued()) {
+            if (names.contains(run.getName())) RunQueue.getInstance().cancel(run);
+        }
+        campaigns.remove(campaign.getId());
+        results.remove(campaign.getId());
+        deleteDir(new File(dir, String.valueOf(campaign.getId())));
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        dir.delete();
+    }
+
+    public Progress getProgress(Campaign campaign) {
+        // Cheap enough to call on every refresh: results of runs that have just ended are read in the background
+        Map<String, ProcessStruct> processes = new HashMap<>();
+        for (ProcessStruct ps : ProcessManager.getInstance().getProcesses()) {
+            if (ps.getName() != null) processes.put(ps.getName(), ps);
+        }
+        Set<String> queued = RunQueue.getInstance().getQueued().stream().map(RunQueue.QueuedRun::getName).collect(Collectors.toSet());
+        Properties campaignResults = results.getOrDefault(campaign.getId(), new Properties());
+
+        Progress progress = new Progress();
+        for (Campaign.Run run : campaign.getRuns()) {
+            String status = campaignResults.getProperty(run.getName() + ".status");
+            ProcessStruct ps = processes.get(run.getName());
+            // runs that ended without reporting a final status (such as ones that failed to start) are caught here
+            if (status == null && ps != null && ps.getStatus() != ProcessStruct.ProcessStatus.ALIVE) {
+                readResult(campaign, run, ps);
+            }
+            if (status == null) {
+                if (ps != null) progress.running++;
+                else if (queued.contains(run.getName())) progress.queued++;
+                else progress.starting++;
+                continue;
+            }
+            if (!status.equals(ProcessStruct.ProcessStatus.FINISHED.name())) {
+                progress.failed++;
+                progress.pointEnded.merge(run.getPoint(), 1, Integer::sum);
+                continue;
+            }
+            progress.finished++;
+            progress.pointEnded.merge(run.getPoint(), 1, Integer::sum);
+            String energyStr = campaignResults.getProperty(run.getName() + ".energy");
+            if (energyStr == null) continue;
+            double energy = Double.parseDouble(energyStr);
+            if (progress.bestEnergy == null || energy < progress.bestEnergy) {
+                progress.bestEnergy = energy;
+                progress.bestRun = run.getName();
+            }
+            progress.pointBest.merge(run.getPoint(), energy, Math::min);
+        }
+        return progress;
+    }
+
+    private void runEnded(ProcessStruct ps) {
+        String name = ps.getName();
+        if (name == null) return;
+        for (Campaign campaign : campaigns.values()) {
+            Properties campaignResults = results.get(campaign.getId());
+            if (campaignResults == null) continue;
+            for (Campaign.Run run : campaign.getRuns()) {
+                if (!run.getName().equals(name)) continue;
+                synchronized (campaignResults) {
+                    if (campaignResults.getProperty(name + ".status") != null) return;
+                }
+                readResult(campaign, run, ps);
+                return;
+            }
+        }
+    }
+
+    private void readResult(Campaign campaign, Campaign.Run run, ProcessStruct ps) {
+        if (!reading.add(run.getName())) return;
+        // read a little after the exit, as a finished run can still be found to have ended early from its logs
+        ProcessManager.getInstance().getTasks().repeat(ProcessTasks.NO_PROCESS, "campaign-result", () -> {
+            try {
+                Double energy = ps.getOutputDir() == null ? null : readBestEnergy(ps.getOutputDir());
+                Properties campaignResults = results.get(campaign.getId());
+                if (campaignResults == null) return false;
+                synchronized (campaignResults) {
+                    campaignResults.setProperty(run.getName() + ".status", ps.getStatus().name());
+                    if (energy != null) campaignResults.setProperty(run.getName() + ".energy", energy.toString());
+                    saveResults(campaign, campaignResults);
+                }
+            } finally {
+                reading.remove(run.getName());
+            }
+            return false;
+        }, RESULT_DELAY, 0);
+    }
+
+    public static Double readBestEnergy(File outputDir) {
+        // Lowest energy in the comment line of the .xyz files TransRot wrote, or null if there is none
+        File[] files = outputDir.listFiles((d, name) -> name.endsWith(".xyz") && !name.endsWith("Movie.xyz"));
+        if (files == null) return null;
+        Double best = null;
+        for (File file : files) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                reader.readLine();
+                String comment = reader.readLine();
+                if (comment == null) continue;
+                Matcher m = ENERGY.matcher(comment);
+                if (!m.find()) continue;
+                double energy = Double.parseDouble(m.group(1));
+                if (best == null || energy < best) best = energy;
+            } catch (IOException | NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+        return best;
+    }
+
+    private Properties loadResults(Campaign campaign) throws IOException {
+        Properties properties = new Properties();
+        File file = new File(new File(dir, String.valueOf(campaign.getId())), "results.properties");
+        if (!file.exists()) return properties;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private void saveResults(Campaign campaign, Properties properties) {
+        File file = new File(new File(dir, String.valueOf(campaign.getId())), "results.properties");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            properties.store(writer, "Campaign results");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
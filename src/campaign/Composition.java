@@ -0,0 +1,103 @@
+package campaign;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * One cluster composition: a count for each molecule. Compositions are generated from a range of counts per molecule,
+ * every combination except the empty one, and ordered by their number of particles (atoms), as the cost of a run grows
+ * with the size of the cluster; queued in this order, the cheap compositions report first.
+ */
+public class Composition {
+    // More than this many compositions is almost certainly a mistake in the ranges
+    public static final int MAX_COMPOSITIONS = 10000;
+
+    public static class Range {
+        private final String molecule;
+        private final int atoms;
+        private final int min;
+        private final int max;
+
+        public Range(String molecule, int atoms, int min, int max) {
+            this.molecule = molecule;
+            this.atoms = atoms;
+            this.min = min;
+            this.max = max;
+        }
+
+        public String getMolecule() {
+            return molecule;
+        }
+
+        // Number of counts in the range
+        int size() {
+            return max - min + 1;
+        }
+    }
+
+    private final Map<String, Integer> counts;
+    private final int particles;
+
+    private Composition(Map<String, Integer> counts, int particles) {
+        this.counts = counts;
+        this.particles = particles;
+    }
+
+    // Molecule counts, in the order of the ranges, leaving out molecules with a count of 0
+    public Map<String, Integer> getCounts() {
+        return counts;
+    }
+
+    public int getParticles() {
+        return particles;
+    }
+
+    public String getLabel() {
+        String mols = counts.entrySet().stream().map(kv -> kv.getKey() + " " + kv.getValue()).collect(Collectors.joining(", "));
+        return mols + " (" + particles + " atoms)";
+    }
+
+    public static long count(List<Range> ranges) {
+        // Includes the empty composition when every range starts at 0
+        long count = 1;
+        for (Range range : ranges) {
+            count *= range.size();
+            if (count > MAX_COMPOSITIONS) return count;
+        }
+        return count;
+    }
+
+    // Every non-empty composition, fewest particles first; throws IllegalArgumentException with a message for the user
+    public static List<Composition> expand(List<Range> ranges) {
+        for (Range range : ranges) {
+            if (range.min < 0 || range.max < range.min) throw new IllegalArgumentException(range.molecule + ": the count range must go from low to high, starting at 0 or more");
+        }
+        if (count(ranges) > MAX_COMPOSITIONS) throw new IllegalArgumentException("More than " + MAX_COMPOSITIONS + " compositions; narrow the count ranges.");
+
+        List<Composition> compositions = new ArrayList<>();
+        int[] counts = new int[ranges.size()];
+        for (int i = 0; i < counts.length; i++) counts[i] = ranges.get(i).min;
+        while (true) {
+            Map<String, Integer> mols = new LinkedHashMap<>();
+            int particles = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) continue;
+                mols.put(ranges.get(i).molecule, counts[i]);
+                particles += counts[i] * ranges.get(i).atoms;
+            }
+            if (!mols.isEmpty()) compositions.add(new Composition(mols, particles));
+
+            // next combination, with the last range varying fastest
+            int i = counts.length - 1;
+            while (i >= 0 && counts[i] == ranges.get(i).max) {
+                counts[i] = ranges.get(i).min;
+                i--;
+            }
+            if (i < 0) break;
+            counts[i]++;
+        }
+        // stable, so compositions of the same size keep the order of the ranges
+        compositions.sort(Comparator.comparingInt(Composition::getParticles));
+        return compositions;
+    }
+}
@@ -0,0 +1,257 @@
+package campaign;
+
+import config.StartGUI;
+import database.DatabaseGUI;
+import database.Molecule;
+import process.RunQueue;
+import util.Globals;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Screens cluster compositions: a range of counts per molecule in the database, submitted as a campaign
+public class CompositionGUI extends JFrame {
+
+    private static CompositionGUI Instance;
+
+    public static CompositionGUI getInstance() {
+        if (Instance == null) Instance = new CompositionGUI();
+        return Instance;
+    }
+
+    private static class RangeTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Molecule", "Atoms", "Min Count", "Max Count"};
+        private final List<String> molecules = new ArrayList<>();
+        private final List<Integer> atoms = new ArrayList<>();
+        private final List<Integer> mins = new ArrayList<>();
+        private final List<Integer> maxes = new ArrayList<>();
+
+        @Override
+        public int getRowCount() {
+            return molecules.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : Integer.class;
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column >= 2;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case 0:
+                    return molecules.get(row);
+                case 1:
+                    return atoms.get(row);
+                case 2:
+                    return mins.get(row);
+                default:
+                    return maxes.get(row);
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            // the table's Integer editor rejects anything that is not a number
+            if (value == null) return;
+            (column == 2 ? mins : maxes).set(row, (Integer) value);
+            fireTableCellUpdated(row, column);
+        }
+
+        void setMolecules(List<Molecule> mols, Map<String, Integer> counts) {
+            // Ranges start at the start page's counts, so an untouched table is the current cluster
+            molecules.clear();
+            atoms.clear();
+            mins.clear();
+            maxes.clear();
+            for (Molecule mol : mols) {
+                if (mol.molName.isEmpty()) continue;
+                int count = counts.getOrDefault(mol.molName, 0);
+                molecules.add(mol.molName);
+                atoms.add(mol.atoms.size());
+                mins.add(count);
+                maxes.add(count);
+            }
+            fireTableDataChanged();
+        }
+
+        List<Composition.Range> getRanges() {
+            List<Composition.Range> ranges = new ArrayList<>();
+            for (int i = 0; i < molecules.size(); i++) {
+                // molecules left at 0 are not part of the screen
+                if (mins.get(i) == 0 && maxes.get(i) == 0) continue;
+                ranges.add(new Composition.Range(molecules.get(i), atoms.get(i), mins.get(i), maxes.get(i)));
+            }
+            return ranges;
+        }
+    }
+
+    private final RangeTableModel rangeModel = new RangeTableModel();
+    private final JTable rangeTable;
+    private final JTextField nameField;
+    private final JSpinner replicasSpinner;
+    private final JComboBox<RunQueue.Priority> priorityBox;
+    private final JLabel summaryLabel;
+    private final JLabel errorLabel;
+    private Map<String, Object> base = new HashMap<>();
+
+    private CompositionGUI() {
+        super("Composition Screening");
+
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+
+        JPanel contentPane = new JPanel();
+        contentPane.setLayout(new BoxLayout(contentPane, BoxLayout.Y_AXIS));
+        contentPane.setBackground(Globals.menuBgColorLight);
+        contentPane.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+
+        JPanel namePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        namePanel.setOpaque(false);
+        JLabel nameLabel = new JLabel("Campaign Name");
+        nameLabel.setFont(Globals.settingsFont);
+        namePanel.add(nameLabel);
+        nameField = new JTextField(24);
+        nameField.setFont(Globals.settingsFontNoBold);
+        namePanel.add(nameField);
+        contentPane.add(namePanel);
+
+        JLabel help = new JLabel("<html>Enter the range of counts to screen for each molecule; every composition in the ranges is run once per replica, " +
+                "smallest clusters first. Molecules left at 0 are not used, and all other settings are taken from the start page.</html>");
+        help.setFont(Globals.settingsFontNoBold);
+        help.setPreferredSize(new Dimension(560, 40));
+        JPanel helpPanel = new JPanel(new BorderLayout());
+        helpPanel.setOpaque(false);
+        helpPanel.add(help);
+        contentPane.add(helpPanel);
+
+        rangeTable = new JTable(rangeModel);
+        rangeTable.setFont(Globals.settingsFontNoBold);
+        rangeTable.setRowHeight(24);
+        rangeTable.getTableHeader().setFont(Globals.settingsFont);
+        rangeTable.getTableHeader().setReorderingAllowed(false);
+        rangeTable.setGridColor(Globals.accentColorDark);
+        rangeTable.getColumnModel().getColumn(0).setPreferredWidth(260);
+        rangeTable.setPreferredScrollableViewportSize(new Dimension(560, 24 * 8));
+        contentPane.add(new JScrollPane(rangeTable));
+
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        optionsPanel.setOpaque(false);
+        replicasSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+        priorityBox = new JComboBox<>(RunQueue.Priority.values());
+        priorityBox.setSelectedItem(RunQueue.Priority.NORMAL);
+        priorityBox.setFont(Globals.settingsFontNoBold);
+        replicasSpinner.addChangeListener(e -> updateSummary());
+        rangeModel.addTableModelListener(e -> updateSummary());
+        optionsPanel.add(label("Replicas"));
+        optionsPanel.add(replicasSpinner);
+        optionsPanel.add(label("Priority"));
+        optionsPanel.add(priorityBox);
+        contentPane.add(optionsPanel);
+
+        summaryLabel = new JLabel(" ");
+        summaryLabel.setFont(Globals.settingsFontNoBold);
+        errorLabel = new JLabel(" ");
+        errorLabel.setFont(Globals.settingsFont);
+        errorLabel.setForeground(Globals.errorColor);
+        JPanel labelPanel = new JPanel(new GridLayout(2, 1));
+        labelPanel.setOpaque(false);
+        labelPanel.add(summaryLabel);
+        labelPanel.add(errorLabel);
+        contentPane.add(labelPanel);
+
+        JPanel btnPanel = new JPanel();
+        btnPanel.setOpaque(false);
+        btnPanel.add(Globals.createButton("Submit Campaign", Globals.btnFont, 40, 25, 8, e -> submit()));
+        contentPane.add(btnPanel);
+
+        setContentPane(contentPane);
+        pack();
+        setLocationRelativeTo(getParent());
+
+        // Close window on ESC
+        getRootPane().registerKeyboardAction(e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+
+    private static JLabel label(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(Globals.settingsFont);
+        label.setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 0));
+        return label;
+    }
+
+    @Override
+    public void setVisible(boolean b) {
+        // molecules and settings are taken from the database and start page when the window is opened
+        if (b) {
+            base = StartGUI.getInstance().getSettings();
+            rangeModel.setMolecules(DatabaseGUI.getInstance().getMolecules(), StartGUI.getInstance().getMolCounts());
+        }
+        super.setVisible(b);
+    }
+
+    private List<Composition> buildCompositions() {
+        if (rangeTable.isEditing()) rangeTable.getCellEditor().stopCellEditing();
+        if ((boolean) base.get("Use Input.xyz"))
+            throw new IllegalArgumentException("Deselect 'Use Input.xyz' on the start page; each composition is built from its molecule counts.");
+        List<Composition> compositions = Composition.expand(rangeModel.getRanges());
+        if (compositions.isEmpty()) throw new IllegalArgumentException("Enter a count range for at least one molecule.");
+        return compositions;
+    }
+
+    private void updateSummary() {
+        errorLabel.setText(" ");
+        try {
+            List<Composition> compositions = buildCompositions();
+            int replicas = (int) replicasSpinner.getValue();
+            summaryLabel.setText(String.format("%d compositions (%d to %d atoms) x %d replicas = %d runs", compositions.size(),
+                    compositions.get(0).getParticles(), compositions.get(compositions.size() - 1).getParticles(), replicas, compositions.size() * replicas));
+        } catch (IllegalArgumentException e) {
+            summaryLabel.setText(" ");
+            errorLabel.setText(e.getMessage());
+        }
+    }
+
+    private void submit() {
+        errorLabel.setText(" ");
+        String name = nameField.getText().trim();
+        try {
+            List<CampaignManager.PointSpec> specs = new ArrayList<>();
+            for (Composition composition : buildCompositions()) {
+                specs.add(new CampaignManager.PointSpec(composition.getLabel(), base, composition.getCounts()));
+            }
+            String description = "Composition screen of " + rangeModel.getRanges().stream().map(Composition.Range::getMolecule).collect(Collectors.joining(", "));
+            CampaignManager.getInstance().submit(name, description, specs, (int) replicasSpinner.getValue(),
+                    (RunQueue.Priority) priorityBox.getSelectedItem(), StartGUI.getInstance()::buildArguments);
+            setVisible(false);
+            CampaignGUI.getInstance().setVisible(true);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            errorLabel.setText(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            errorLabel.setText("The campaign could not be saved: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package campaign;
+
+import config.ConfigWriter;
+import config.Constraint;
+import util.Globals;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.*;
+
+/*
+ * A parameter sweep over config settings: each swept setting (axis) is given a list of values or a range, and the
+ * sweep expands to every combination (GRID) or to a Latin hypercube sample of the ranges (LATIN_HYPERCUBE).
+ * Values are checked against each setting's Constraint, and a setting that is disabled by its dependentOn rules at
+ * some point keeps its base value there, so the same run is never generated twice.
+ */
+public class Sweep {
+    // Significant digits kept for values sampled from a float range
+    public static final int SAMPLE_DIGITS = 6;
+    // More than this many points is almost certainly a mistake in the axes
+    public static final int MAX_POINTS = 10000;
+
+    public enum Mode {
+        GRID("Full grid"), LATIN_HYPERCUBE("Latin hypercube");
+
+        private final String text;
+
+        Mode(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    public static class Axis {
+        private final Globals.SettingInfo setting;
+        // either a list of values, or a range from..to split into steps values for a grid
+        private final List<Object> values;
+        private final double from;
+        private final double to;
+        private final int steps;
+
+        private Axis(Globals.SettingInfo setting, List<Object> values, double from, double to, int steps) {
+            this.setting = setting;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.steps = steps;
+        }
+
+        public static Axis parse(Globals.SettingInfo setting, String spec) {
+            // "a, b, c" lists values; "from..to:steps" is a range (steps may be left out for a Latin hypercube)
+            // Throws IllegalArgumentException with a message for the user
+            spec = spec.trim();
+            Constraint.DataType type = setting.getConstraint().getType();
+            if (spec.contains("..")) {
+                if (type == Constraint.DataType.BOOLEAN) throw new IllegalArgumentException(setting.getName() + ": ranges are only allowed for numbers");
+                String[] bounds = spec.split("\\.\\.", 2);
+                String[] end = bounds[1].split(":", 2);
+                try {
+                    double from = Double.parseDouble(bounds[0].trim());
+                    double to = Double.parseDouble(end[0].trim());
+                    int steps = end.length > 1 ? Integer.parseInt(end[1].trim()) : 0;
+                    if (to < from) throw new IllegalArgumentException(setting.getName() + ": a range must go from low to high");
+                    if (end.length > 1 && steps < 1) throw new IllegalArgumentException(setting.getName() + ": a range needs at least 1 step");
+                    check(setting, from);
+                    check(setting, to);
+                    return new Axis(setting, null, from, to, steps);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(setting.getName() + ": '" + spec + "' is not a range like 100..500:5");
+                }
+            }
+            List<Object> values = new ArrayList<>();
+            for (String part : spec.split(",")) {
+                part = part.trim();
+                if (part.isEmpty()) continue;
+                Object value = parseValue(setting, part);
+                if (!values.contains(value)) values.add(value);
+            }
+            if (values.isEmpty()) throw new IllegalArgumentException(setting.getName() + ": no values given");
+            return new Axis(setting, values, 0, 0, 0);
+        }
+
+        private static Object parseValue(Globals.SettingInfo setting, String value) {
+            try {
+                switch (setting.getConstraint().getType()) {
+                    case BOOLEAN:
+                        if (!value.equals("true") && !value.equals("false")) throw new NumberFormatException();
+                        return Boolean.valueOf(value);
+                    case INT:
+                        int i = Integer.parseInt(value);
+                        check(setting, i);
+                        return i;
+                    default:
+                        double d = Double.parseDouble(value);
+                        check(setting, d);
+                        return toDecimal(d);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(setting.getName() + ": '" + value + "' is not a valid " + setting.getConstraint().getType().name().toLowerCase());
+            }
+        }
+
+        private static void check(Globals.SettingInfo setting, double value) {
+            // Bounds are inclusive, as in the start page's fields
+            if (!(setting.getConstraint() instanceof Constraint.NumberConstraint)) return;
+            Constraint.NumberConstraint<?> constraint = (Constraint.NumberConstraint<?>) setting.getConstraint();
+            if (constraint.getMin() != null && value < constraint.getMin().doubleValue())
+                throw new IllegalArgumentException(setting.getName() + ": " + value + " is below the minimum of " + constraint.getMin());
+            if (constraint.getMax() != null && value > constraint.getMax().doubleValue())
+                throw new IllegalArgumentException(setting.getName() + ": " + value + " is above the maximum of " + constraint.getMax());
+        }
+
+        public Globals.SettingInfo getSetting() {
+            return setting;
+        }
+
+        boolean isRange() {
+            return values == null;
+        }
+
+        // Number of grid values at most; rounding may merge some
+        int gridSize() {
+            if (values != null) return values.size();
+            if (steps < 1) throw new IllegalArgumentException(setting.getName() + ": a full grid needs a number of steps, like " + from + ".." + to + ":5");
+            return steps;
+        }
+
+        List<Object> gridValues() {
+            if (values != null) return values;
+            gridSize();
+            List<Object> grid = new ArrayList<>();
+            for (int i = 0; i < steps; i++) {
+                Object value = valueAt(steps == 1 ? 0 : (double) i / (steps - 1));
+                if (!grid.contains(value)) grid.add(value);
+            }
+            return grid;
+        }
+
+        Object valueAt(double u) {
+            // u in [0, 1] across the range, or across the listed values
+            if (values != null) return values.get(Math.min(values.size() - 1, (int) (u * values.size())));
+            double value = from + u * (to - from);
+            if (setting.getConstraint().getType() == Constraint.DataType.INT) return (int) Math.round(value);
+            return toDecimal(Math.min(to, Math.max(from, value)));
+        }
+    }
+
+    static BigDecimal toDecimal(double value) {
+        // Plain notation with at least one decimal, as the start page writes floats
+        BigDecimal decimal = new BigDecimal(BigDecimal.valueOf(value).round(new MathContext(SAMPLE_DIGITS)).stripTrailingZeros().toPlainString());
+        return decimal.scale() < 1 ? decimal.setScale(1) : decimal;
+    }
+
+    private final List<Axis> axes;
+    private final Mode mode;
+    private final int samples;
+    private final long seed;
+
+    public Sweep(List<Axis> axes, Mode mode, int samples, long seed) {
+        this.axes = axes;
+        this.mode = mode;
+        this.samples = samples;
+        this.seed = seed;
+    }
+
+    public List<Axis> getAxes() {
+        return axes;
+    }
+
+    public long count() {
+        // Points before duplicates are removed
+        if (mode == Mode.LATIN_HYPERCUBE) return samples;
+        long count = 1;
+        for (Axis axis : axes) {
+            count *= axis.gridSize();
+            if (count > MAX_POINTS) return count;
+        }
+        return count;
+    }
+
+    // Full settings of every point, in order; base supplies every setting that is not swept
+    // Throws IllegalArgumentException with a message for the user
+    public List<Map<String, Object>> expand(Map<String, Object> base) {
+        if (count() > MAX_POINTS) throw new IllegalArgumentException("More than " + MAX_POINTS + " points; narrow the sweep.");
+        List<Map<String, Object>> points = mode == Mode.GRID ? grid() : latinHypercube();
+        Set<Map<String, Object>> unique = new LinkedHashSet<>();
+        for (Map<String, Object> point : points) {
+            Map<String, Object> settings = new HashMap<>(base);
+            settings.putAll(point);
+            // settings the start page would disable here keep their base value
+            for (Axis axis : axes) {
+                if (!ConfigWriter.isActive(axis.setting, settings)) settings.put(axis.setting.getName(), base.get(axis.setting.getName()));
+            }
+            unique.add(settings);
+        }
+        return new ArrayList<>(unique);
+    }
+
+    private List<Map<String, Object>> grid() {
+        List<Map<String, Object>> points = new ArrayList<>();
+        points.add(new HashMap<>());
+        for (Axis axis : axes) {
+            List<Map<String, Object>> next = new ArrayList<>();
+            for (Map<String, Object> point : points) {
+                for (Object value : axis.gridValues()) {
+                    Map<String, Object> extended = new HashMap<>(point);
+                    extended.put(axis.setting.getName(), value);
+                    next.add(extended);
+                }
+            }
+            points = next;
+        }
+        return points;
+    }
+
+    private List<Map<String, Object>> latinHypercube() {
+        // Each axis is split into as many equal strata as there are samples, and every stratum is used exactly once
+        Random random = new Random(seed);
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (int i = 0; i < samples; i++) points.add(new HashMap<>());
+        for (Axis axis : axes) {
+            List<Integer> strata = new ArrayList<>();
+            for (int i = 0; i < samples; i++) strata.add(i);
+            Collections.shuffle(strata, random);
+            for (int i = 0; i < samples; i++) {
+                double u = (strata.get(i) + (axis.isRange() ? random.nextDouble() : 0.5)) / samples;
+                points.get(i).put(axis.setting.getName(), axis.valueAt(u));
+            }
+        }
+        return points;
+    }
+
+    // Swept settings that none of the expanded points can use, because their dependentOn rules never hold
+    public List<String> getInactiveAxes(List<Map<String, Object>> points) {
+        List<String> inactive = new ArrayList<>();
+        for (Axis axis : axes) {
+            if (points.stream().noneMatch(point -> ConfigWriter.isActive(axis.setting, point))) inactive.add(axis.setting.getName());
+        }
+        return inactive;
+    }
+}
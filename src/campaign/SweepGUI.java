@@ -0,0 +1,256 @@
+package campaign;
+
+import config.StartGUI;
+import process.RunQueue;
+import util.Globals;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Defines a parameter sweep over the start page's settings and submits it as a campaign
+public class SweepGUI extends JFrame {
+
+    private static SweepGUI Instance;
+
+    public static SweepGUI getInstance() {
+        if (Instance == null) Instance = new SweepGUI();
+        return Instance;
+    }
+
+    private static class AxisTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Setting", "Current Value", "Values to Sweep"};
+        private final Object[] current = new Object[Globals.settings.size()];
+        private final String[] specs = new String[Globals.settings.size()];
+
+        AxisTableModel() {
+            Arrays.fill(specs, "");
+        }
+
+        @Override
+        public int getRowCount() {
+            return Globals.settings.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 2;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case 0:
+                    return Globals.settings.get(row).getName();
+                case 1:
+                    return current[row];
+                default:
+                    return specs[row];
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            specs[row] = value.toString();
+            fireTableCellUpdated(row, column);
+        }
+
+        void setCurrent(Map<String, Object> settings) {
+            for (int i = 0; i < current.length; i++) current[i] = settings.get(Globals.settings.get(i).getName());
+            fireTableDataChanged();
+        }
+    }
+
+    private final AxisTableModel axisModel = new AxisTableModel();
+    private final JTable axisTable;
+    private final JTextField nameField;
+    private final JComboBox<Sweep.Mode> modeBox;
+    private final JSpinner samplesSpinner;
+    private final JSpinner replicasSpinner;
+    private final JComboBox<RunQueue.Priority> priorityBox;
+    private final JLabel summaryLabel;
+    private final JLabel errorLabel;
+    private Map<String, Object> base = new HashMap<>();
+    // Latin hypercube seed, kept while the window is open so the summary and the submitted sweep sample the same points
+    private long seed = System.nanoTime();
+
+    private SweepGUI() {
+        super("Parameter Sweep");
+
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+
+        JPanel contentPane = new JPanel();
+        contentPane.setLayout(new BoxLayout(contentPane, BoxLayout.Y_AXIS));
+        contentPane.setBackground(Globals.menuBgColorLight);
+        contentPane.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+
+        JPanel namePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        namePanel.setOpaque(false);
+        JLabel nameLabel = new JLabel("Campaign Name");
+        nameLabel.setFont(Globals.settingsFont);
+        namePanel.add(nameLabel);
+        nameField = new JTextField(24);
+        nameField.setFont(Globals.settingsFontNoBold);
+        namePanel.add(nameField);
+        contentPane.add(namePanel);
+
+        JLabel help = new JLabel("<html>Enter values for each setting to sweep, as a list (<tt>300, 500, 700</tt>) or a range " +
+                "<tt>from..to:steps</tt> (<tt>100..500:5</tt>; steps may be left out for a Latin hypercube). Other settings keep their current value.</html>");
+        help.setFont(Globals.settingsFontNoBold);
+        help.setPreferredSize(new Dimension(640, 40));
+        help.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JPanel helpPanel = new JPanel(new BorderLayout());
+        helpPanel.setOpaque(false);
+        helpPanel.add(help);
+        contentPane.add(helpPanel);
+
+        axisTable = new JTable(axisModel);
+        axisTable.setFont(Globals.settingsFontNoBold);
+        axisTable.setRowHeight(24);
+        axisTable.getTableHeader().setFont(Globals.settingsFont);
+        axisTable.getTableHeader().setReorderingAllowed(false);
+        axisTable.setGridColor(Globals.accentColorDark);
+        axisTable.getColumnModel().getColumn(0).setPreferredWidth(300);
+        axisTable.getColumnModel().getColumn(1).setPreferredWidth(120);
+        axisTable.getColumnModel().getColumn(2).setPreferredWidth(220);
+        axisTable.setPreferredScrollableViewportSize(new Dimension(640, 24 * 12));
+        JScrollPane sp = new JScrollPane(axisTable);
+        contentPane.add(sp);
+
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        optionsPanel.setOpaque(false);
+        modeBox = new JComboBox<>(Sweep.Mode.values());
+        modeBox.setFont(Globals.settingsFontNoBold);
+        samplesSpinner = new JSpinner(new SpinnerNumberModel(20, 1, Sweep.MAX_POINTS, 1));
+        replicasSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+        priorityBox = new JComboBox<>(RunQueue.Priority.values());
+        priorityBox.setSelectedItem(RunQueue.Priority.NORMAL);
+        priorityBox.setFont(Globals.settingsFontNoBold);
+        samplesSpinner.setEnabled(false);
+        modeBox.addActionListener(e -> {
+            samplesSpinner.setEnabled(modeBox.getSelectedItem() == Sweep.Mode.LATIN_HYPERCUBE);
+            updateSummary();
+        });
+        samplesSpinner.addChangeListener(e -> updateSummary());
+        replicasSpinner.addChangeListener(e -> updateSummary());
+        axisModel.addTableModelListener(e -> updateSummary());
+        optionsPanel.add(label("Sampling"));
+        optionsPanel.add(modeBox);
+        optionsPanel.add(label("Samples"));
+        optionsPanel.add(samplesSpinner);
+        optionsPanel.add(label("Replicas"));
+        optionsPanel.add(replicasSpinner);
+        optionsPanel.add(label("Priority"));
+        optionsPanel.add(priorityBox);
+        contentPane.add(optionsPanel);
+
+        summaryLabel = new JLabel(" ");
+        summaryLabel.setFont(Globals.settingsFontNoBold);
+        errorLabel = new JLabel(" ");
+        errorLabel.setFont(Globals.settingsFont);
+        errorLabel.setForeground(Globals.errorColor);
+        JPanel labelPanel = new JPanel(new GridLayout(2, 1));
+        labelPanel.setOpaque(false);
+        labelPanel.add(summaryLabel);
+        labelPanel.add(errorLabel);
+        contentPane.add(labelPanel);
+
+        JPanel btnPanel = new JPanel();
+        btnPanel.setOpaque(false);
+        btnPanel.add(Globals.createButton("Submit Campaign", Globals.btnFont, 40, 25, 8, e -> submit()));
+        contentPane.add(btnPanel);
+
+        setContentPane(contentPane);
+        pack();
+        setLocationRelativeTo(getParent());
+
+        // Close window on ESC
+        getRootPane().registerKeyboardAction(e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+
+    private static JLabel label(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(Globals.settingsFont);
+        label.setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 0));
+        return label;
+    }
+
+    @Override
+    public void setVisible(boolean b) {
+        // the sweep starts from whatever is on the start page when the window is opened
+        if (b) {
+            base = StartGUI.getInstance().getSettings();
+            seed = System.nanoTime();
+            axisModel.setCurrent(base);
+        }
+        super.setVisible(b);
+    }
+
+    private Sweep buildSweep() {
+        if (axisTable.isEditing()) axisTable.getCellEditor().stopCellEditing();
+        List<Sweep.Axis> axes = new ArrayList<>();
+        for (int i = 0; i < Globals.settings.size(); i++) {
+            String spec = (String) axisModel.getValueAt(i, 2);
+            if (!spec.trim().isEmpty()) axes.add(Sweep.Axis.parse(Globals.settings.get(i), spec));
+        }
+        if (axes.isEmpty()) throw new IllegalArgumentException("Enter values for at least one setting.");
+        return new Sweep(axes, (Sweep.Mode) modeBox.getSelectedItem(), (int) samplesSpinner.getValue(), seed);
+    }
+
+    private void updateSummary() {
+        errorLabel.setText(" ");
+        try {
+            Sweep sweep = buildSweep();
+            List<Map<String, Object>> points = sweep.expand(base);
+            int replicas = (int) replicasSpinner.getValue();
+            summaryLabel.setText(String.format("%d points x %d replicas = %d runs", points.size(), replicas, points.size() * replicas));
+            List<String> inactive = sweep.getInactiveAxes(points);
+            if (!inactive.isEmpty()) errorLabel.setText("Has no effect with the current settings: " + String.join(", ", inactive));
+        } catch (IllegalArgumentException e) {
+            summaryLabel.setText(" ");
+            errorLabel.setText(e.getMessage());
+        }
+    }
+
+    private void submit() {
+        errorLabel.setText(" ");
+        String name = nameField.getText().trim();
+        try {
+            Sweep sweep = buildSweep();
+            Map<String, Integer> molCounts = StartGUI.getInstance().getMolCounts();
+            List<String> swept = sweep.getAxes().stream().map(axis -> axis.getSetting().getName()).collect(Collectors.toList());
+            List<CampaignManager.PointSpec> specs = new ArrayList<>();
+            for (Map<String, Object> point : sweep.expand(base)) {
+                String label = swept.stream().map(setting -> setting + " = " + point.get(setting)).collect(Collectors.joining(", "));
+                specs.add(new CampaignManager.PointSpec(label, point, molCounts));
+            }
+            String description = String.format("%s sweep of %s", modeBox.getSelectedItem(), String.join(", ", swept));
+            CampaignManager.getInstance().submit(name, description, specs, (int) replicasSpinner.getValue(),
+                    (RunQueue.Priority) priorityBox.getSelectedItem(), StartGUI.getInstance()::buildArguments);
+            setVisible(false);
+            CampaignGUI.getInstance().setVisible(true);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            errorLabel.setText(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            errorLabel.setText("The campaign could not be saved: " + e.getMessage());
+        }
+    }
+}
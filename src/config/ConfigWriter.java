@@ -0,0 +1,43 @@
+package config;
+
+import util.Globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Writes config.txt files in the format TransRot reads; used by the start page and by campaigns
+public class ConfigWriter {
+
+    public static String format(Map<String, Object> settings, Map<String, Integer> molCounts) {
+        // Settings are written in the order of Globals.settings, followed by every molecule with a positive count
+        String str = "// Required comment line\n// Required comment line\n" +
+                Globals.settings.stream()
+                        .filter(setting -> settings.containsKey(setting.getName()))
+                        .map(setting -> String.format("%s:  %s", setting.getName() + (setting.getConstraint()
+                                .getType() == Constraint.DataType.BOOLEAN ? " (true/false)" : ""), settings.get(setting.getName())))
+                        .collect(Collectors.joining("\n"));
+        str += "\n\n// Required comment line\n// Required comment line\n";
+        str += molCounts.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals("") && entry.getValue() > 0)
+                .map(entry -> String.format("%s  %d", entry.getKey(), entry.getValue()))
+                .collect(Collectors.joining("\n"));
+        return str;
+    }
+
+    public static void write(File file, Map<String, Object> settings, Map<String, Integer> molCounts) throws IOException {
+        Globals.writeFileAtomically(file, format(settings, molCounts));
+    }
+
+    // Whether every dependentOn rule of a setting holds, i.e. whether the start page would let it be edited
+    public static boolean isActive(Globals.SettingInfo setting, Map<String, Object> settings) {
+        for (String parent : setting.getParents()) {
+            if (parent.isEmpty()) continue;
+            boolean negative = parent.startsWith("!");
+            boolean value = Boolean.TRUE.equals(settings.get(parent.substring(negative ? 1 : 0)));
+            if (value == negative) return false;
+        }
+        return true;
+    }
+}
@@ -1,8 +1,12 @@
 package config;
 
+import campaign.CampaignGUI;
+import campaign.CompositionGUI;
+import campaign.SweepGUI;
 import database.DatabaseGUI;
 import process.ProcessGUI;
 import process.ProcessManager;
+import process.RunQueue;
 import util.*;
 
 import javax.swing.*;
@@ -19,7 +23,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
@@ -605,6 +608,12 @@ public class StartGUI extends JFrame {
         contentPane.add(molPanel);
         contentPane.add(addMolBtn);
 
+        // Runs wait in the RunQueue until a core is free; higher priorities are started first
+        JComboBox<RunQueue.Priority> priorityBox = new JComboBox<>(RunQueue.Priority.values());
+        priorityBox.setSelectedItem(RunQueue.Priority.NORMAL);
+        priorityBox.setFont(Globals.settingsFontNoBold);
+        priorityBox.setToolTipText("Priority in the run queue");
+
         // Start Button
         JButton startBtn = Globals.createButton("Start Simulation", Globals.btnFont, 40, 25, 8, e -> {
             String name = nameField.getText();
@@ -614,57 +623,20 @@ public class StartGUI extends JFrame {
                 return;
             }
 
-            for (Map.Entry<JComboBox<String>, JFormattedTextField> entry : currMolDropdowns.entrySet()) {
-                JComboBox<String> comboBox = entry.getKey();
-                JFormattedTextField textField = entry.getValue();
-                selectedMols.put((String) comboBox.getSelectedItem(), ((Long) textField.getValue()).intValue());
-            }
+            readMolSelectors();
 
             try {
-                List<String> arguments = new ArrayList<>(Arrays.asList(
-                        "-c", '"' + Globals.configPath + '"', "-d", '"' + Globals.dbPath + '"', "-o", outputFilepath
-                ));
-                int ptCount, numMols;
-                if ((boolean) settings.get("Choose All Interaction Parameters")) {
-                    if (paramsFile.length() == 0) {
-                        setError("Please select an interaction_params.txt file or deselect 'Choose All Interaction Parameters'");
-                        return;
-                    }
-                    arguments.add("-p");
-                    arguments.add('"' + paramsFile + '"');
-                }
-
-                if ((boolean) settings.get("Use Input.xyz")) {
-                    if (inputFile.length() == 0) {
-                        setError("Please select an Input.xyz file or deselect 'Use Input.xyz'");
-                        return;
-                    }
-                    arguments.add("-i");
-                    arguments.add('"' + inputFile + '"');
-
-                    File f = new File(inputFile);
-                    try (Scanner s = new Scanner(f)) {
-                        String line = s.nextLine();
-                        ptCount = Integer.parseInt(line.trim());
-                        String line2 = s.nextLine().replaceFirst("Energy: -?\\d*.?\\d* Kcal/mole", "");
-                        if (!line2.trim().matches("^(\\d *.*?)( | \\d *.*?)*$")) throw new NumberFormatException();
-                        numMols = line2.trim().split(" ").length; // TODO: wrong
-                    } catch (NumberFormatException | FileNotFoundException exc) {
-                        setError("Invalid input file!");
-                        return;
-                    }
-                } else if (selectedMols.entrySet().stream().filter(kv -> !kv.getKey().equals("") && kv.getValue() > 0).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)).size() == 0) {
-                    // only checks the valid molecule counts
-                    setError("You cannot run a simulation with no molecules.");
+                List<String> arguments;
+                try {
+                    arguments = buildArguments(Globals.configPath, settings, selectedMols);
+                } catch (IllegalStateException exc) {
+                    setError(exc.getMessage());
                     return;
-                } else {
-                    ptCount = selectedMols.entrySet().stream().filter(kv -> !kv.getKey().equals("") && kv.getValue() > 0).mapToInt(kv -> DatabaseGUI.getInstance().getMolecule(kv.getKey()).atoms.size() * kv.getValue()).sum();
-                    numMols = selectedMols.values().stream().mapToInt(i -> i).sum();
                 }
                 saveSettings(Globals.configPath);
 
-                // Start sim
-                ProcessManager.getInstance().runProcess(name, arguments);
+                // Queue sim
+                RunQueue.getInstance().submit(name, (RunQueue.Priority) priorityBox.getSelectedItem(), arguments);
             } catch (Exception exc) {
                 exc.printStackTrace();
             }
@@ -673,11 +645,69 @@ public class StartGUI extends JFrame {
         btnPanel.setOpaque(false);
 
         btnPanel.add(startBtn);
+        btnPanel.add(priorityBox);
         btnPanel.revalidate();
         contentPane.add(Box.createRigidArea(new Dimension(0, 10)));
         contentPane.add(btnPanel);
     }
 
+    private void readMolSelectors() {
+        for (Map.Entry<JComboBox<String>, JFormattedTextField> entry : currMolDropdowns.entrySet()) {
+            JComboBox<String> comboBox = entry.getKey();
+            JFormattedTextField textField = entry.getValue();
+            selectedMols.put((String) comboBox.getSelectedItem(), ((Long) textField.getValue()).intValue());
+        }
+    }
+
+    // TransRot arguments for a run of the given config file; throws IllegalStateException with the error to show
+    public List<String> buildArguments(String configPath, Map<String, Object> settings, Map<String, Integer> molCounts) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-c", '"' + configPath + '"', "-d", '"' + Globals.dbPath + '"', "-o", outputFilepath
+        ));
+        if ((boolean) settings.get("Choose All Interaction Parameters")) {
+            if (paramsFile.length() == 0) {
+                throw new IllegalStateException("Please select an interaction_params.txt file or deselect 'Choose All Interaction Parameters'");
+            }
+            arguments.add("-p");
+            arguments.add('"' + paramsFile + '"');
+        }
+
+        if ((boolean) settings.get("Use Input.xyz")) {
+            if (inputFile.length() == 0) {
+                throw new IllegalStateException("Please select an Input.xyz file or deselect 'Use Input.xyz'");
+            }
+            arguments.add("-i");
+            arguments.add('"' + inputFile + '"');
+
+            File f = new File(inputFile);
+            try (Scanner s = new Scanner(f)) {
+                Integer.parseInt(s.nextLine().trim());
+                String line2 = s.nextLine().replaceFirst("Energy: -?\\d*.?\\d* Kcal/mole", "");
+                if (!line2.trim().matches("^(\\d *.*?)( | \\d *.*?)*$")) throw new NumberFormatException();
+            } catch (NumberFormatException | FileNotFoundException | NoSuchElementException exc) {
+                throw new IllegalStateException("Invalid input file!");
+            }
+        } else if (molCounts.entrySet().stream().noneMatch(kv -> !kv.getKey().equals("") && kv.getValue() > 0)) {
+            // only checks the valid molecule counts
+            throw new IllegalStateException("You cannot run a simulation with no molecules.");
+        }
+        return arguments;
+    }
+
+    // Current values of the start page, as they would be saved to config.txt
+    public Map<String, Object> getSettings() {
+        return new HashMap<>(settings);
+    }
+
+    public Map<String, Integer> getMolCounts() {
+        readMolSelectors();
+        Map<String, Integer> molCounts = new LinkedHashMap<>();
+        selectedMols.forEach((name, count) -> {
+            if (!name.equals("") && count > 0) molCounts.put(name, count);
+        });
+        return molCounts;
+    }
+
     private void clearMolSelectors() {
         molPanel.removeAll();
         selectedMols.clear();
@@ -982,7 +1012,10 @@ public class StartGUI extends JFrame {
                 }, KeyEvent.VK_W));
         menuBar.add(optionsMenu);
         JMenu processesMenu = createMenuOption("Processes", KeyEvent.VK_P,
-                new MenuOption("Monitor processes", e -> ProcessGUI.getInstance().setVisible(true), KeyEvent.VK_M));
+                new MenuOption("Monitor processes", e -> ProcessGUI.getInstance().setVisible(true), KeyEvent.VK_M),
+                new MenuOption("Parameter sweep", e -> SweepGUI.getInstance().setVisible(true), KeyEvent.VK_P),
+                new MenuOption("Composition screening", e -> CompositionGUI.getInstance().setVisible(true), KeyEvent.VK_C),
+                new MenuOption("Campaign results", e -> CampaignGUI.getInstance().setVisible(true), KeyEvent.VK_R));
         menuBar.add(processesMenu);
 
         setJMenuBar(menuBar);
@@ -1219,25 +1252,9 @@ public class StartGUI extends JFrame {
 
     public void saveSettings(String path, boolean overrideMols) {
         KeyboardFocusManager.getCurrentKeyboardFocusManager().clearGlobalFocusOwner();
-        try (FileWriter writer = new FileWriter(path)) {
-            // Long list of functions that sorts the list of settings as they are
-            // sorted in Globals.setting before formatting into a String to write
-            String str = "// Required comment line\n// Required comment line\n" +
-                settings
-                    .keySet() // returns setting names
-                    .stream()
-                    .map(k -> Globals.settings.stream().map(Globals.SettingInfo::getName).collect(Collectors.toList()).indexOf(k)) // maps to indices in Globals.settings
-                    .sorted() // sorts indices
-                    .map(i -> new AbstractMap.SimpleEntry<>(
-                            Globals.settings.get(i).getName() + (Globals.settings.get(i).getConstraint()
-                                    .getType() == Constraint.DataType.BOOLEAN ? " (true/false)" : ""),
-                            settings.get(Globals.settings.get(i).getName()))) // converts back to setting values
-                    .map(entry -> String.format("%s:  %s", entry.getKey(), entry.getValue()))
-                        .collect(Collectors.joining("\n"));
-            str += "\n\n// Required comment line\n// Required comment line\n";
-            if (!overrideMols) str += selectedMols.keySet().stream().filter(key -> !key.equals("") && selectedMols.get(key) > 0).map(key -> String.format("%s  %d", key, selectedMols.get(key))).collect(Collectors.joining("\n"));
-            else str += DatabaseGUI.getInstance().getMoleculeNames().get(0) + "  " + "1";
-            writer.write(str);
+        try {
+            Map<String, Integer> molCounts = overrideMols ? Map.of(DatabaseGUI.getInstance().getMoleculeNames().get(0), 1) : selectedMols;
+            ConfigWriter.write(new File(path), settings, molCounts);
         } catch (IOException e) {
             e.printStackTrace();
         }
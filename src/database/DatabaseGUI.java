@@ -5,7 +5,6 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -248,9 +247,8 @@ public class DatabaseGUI extends JFrame {
 
         errorLabel.setText("");
 
-        try (FileWriter writer = new FileWriter(path)) {
-            String str = toFile();
-            writer.write(str);
+        try {
+            Globals.writeFileAtomically(new File(path), toFile());
             listeners.forEach(SaveListener::onSave);
         } catch (IOException e) {
             e.printStackTrace();
@@ -0,0 +1,132 @@
+package process;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EdtLogBridge {
+    // Lines are delivered to the EDT at most once per frame
+    public static final int FRAME_MILLIS = 16;
+
+    private static EdtLogBridge Instance = null;
+
+    public static synchronized EdtLogBridge getInstance() {
+        if (Instance == null)
+            Instance = new EdtLogBridge();
+        return Instance;
+    }
+
+    private static class LogLine {
+        final boolean stderr;
+        final String line;
+
+        LogLine(boolean stderr, String line) {
+            this.stderr = stderr;
+            this.line = line;
+        }
+    }
+
+    private static class LineQueue {
+        final Queue<LogLine> lines = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger();
+    }
+
+    private final Map<ProcessStruct, LineQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Timer drainTimer;
+
+    // metrics
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong linesDelivered = new AtomicLong();
+    private final AtomicLong batchesDelivered = new AtomicLong();
+    private volatile int lastBatchSize = 0;
+    private volatile int maxBatchSize = 0;
+
+    private EdtLogBridge() {
+        drainTimer = new Timer(FRAME_MILLIS, e -> drain());
+        drainTimer.setRepeats(false);
+        drainTimer.setCoalesce(false);
+    }
+
+    public void enqueue(ProcessStruct ps, boolean stderr, String line) {
+        // Called from reader threads; never touches Swing state
+        LineQueue queue = queues.computeIfAbsent(ps, p -> new LineQueue());
+        queue.lines.add(new LogLine(stderr, line));
+        int depth = queue.depth.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+        if (scheduled.compareAndSet(false, true)) drainTimer.start();
+    }
+
+    public void discard(ProcessStruct ps) {
+        queues.remove(ps);
+    }
+
+    private void drain() {
+        // Runs on the EDT; hands each process's pending lines to its listeners as ordered runs of one stream
+        scheduled.set(false);
+        queues.forEach((ps, queue) -> {
+            List<String> batch = new ArrayList<>();
+            boolean batchStderr = false;
+            int drained = 0;
+            LogLine next;
+            while ((next = queue.lines.poll()) != null) {
+                drained++;
+                if (!batch.isEmpty() && next.stderr != batchStderr) {
+                    deliver(ps, batchStderr, batch);
+                    batch = new ArrayList<>();
+                }
+                batchStderr = next.stderr;
+                batch.add(next.line);
+            }
+            if (!batch.isEmpty()) deliver(ps, batchStderr, batch);
+            if (drained > 0) {
+                queue.depth.addAndGet(-drained);
+                lastBatchSize = drained;
+                if (drained > maxBatchSize) maxBatchSize = drained;
+                batchesDelivered.incrementAndGet();
+                linesDelivered.addAndGet(drained);
+            }
+        });
+    }
+
+    private void deliver(ProcessStruct ps, boolean stderr, List<String> batch) {
+        for (ProcessLogBatchListener listener : ps.getBatchLogListeners()) {
+            if (stderr) listener.onStderr(batch);
+            else listener.onStdout(batch);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queues.values().stream().mapToInt(q -> q.depth.get()).sum();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        long batches = batchesDelivered.get();
+        return batches == 0 ? 0 : (double) linesDelivered.get() / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queue depth %d (max %d), batches %d, batch size last %d / avg %.1f / max %d",
+                getQueueDepth(), getMaxQueueDepth(), batchesDelivered.get(), getLastBatchSize(), getAverageBatchSize(), getMaxBatchSize());
+    }
+}
@@ -0,0 +1,71 @@
+package process;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// Exit code and resource totals of a run, as measured by the Wrapper launcher
+public class ExitReport {
+    private final int code;
+    private final long wallMillis;
+    // -1 where it is not known, as for a pooled run whose worker died
+    private final long cpuMillis;
+    // Peak resident set size; -1 where the platform does not expose it
+    private final long maxRssKb;
+
+    public ExitReport(int code, long wallMillis, long cpuMillis, long maxRssKb) {
+        this.code = code;
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.maxRssKb = maxRssKb;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public long getMaxRssKb() {
+        return maxRssKb;
+    }
+
+    // Tab-separated fields, as sent in an EXIT report and stored in pids/<id>.exit
+    public String format() {
+        return code + "\t" + wallMillis + "\t" + cpuMillis + "\t" + maxRssKb;
+    }
+
+    public static ExitReport parse(String[] fields, int from) {
+        try {
+            return new ExitReport(Integer.parseInt(fields[from]), Long.parseLong(fields[from + 1]), Long.parseLong(fields[from + 2]), Long.parseLong(fields[from + 3]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    public static ExitReport read(File file) {
+        // Returns null if the file is missing or not completely written
+        try {
+            return parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim().split("\t"), 0);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void write(File file) throws IOException {
+        // Written under a temporary name and renamed, so readers never see a partial report
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), (format() + "\n").getBytes(StandardCharsets.UTF_8));
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) throw new IOException("Could not write " + file);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Receives the launch handshake sent by Wrapper (see its class comment) for every run launched by this instance
+// All connections are served by a single selector thread
+public class LaunchReports {
+    public interface Handler {
+        void onPid(long pid);
+        void onOutput(long millisFromStart, String firstLine);
+        void onLine(boolean stderr, long offset, String line);
+        // The Wrapper stopped streaming lines, which from now on are only written to the log files
+        void onUnstreamed();
+        void onExit(ExitReport report);
+        // The connection ended, with or without an exit report
+        void onClosed();
+    }
+
+    private static class Connection {
+        final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        Handler handler = null;
+    }
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final String token;
+    private final Map<Long, Handler> handlers = new ConcurrentHashMap<>();
+
+    public static LaunchReports open() {
+        // Returns null if no loopback socket can be opened, in which case runs are launched without reporting
+        try {
+            return new LaunchReports();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private LaunchReports() throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.configureBlocking(false);
+        selector = Selector.open();
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        token = sb.toString();
+
+        Thread t = new Thread(this::serve, "launch-reports");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Value for the VTR_REPORT environment variable of a launched Wrapper
+    public String getAddress() {
+        return server.socket().getLocalPort() + ":" + token;
+    }
+
+    public void expect(long id, Handler handler) {
+        handlers.put(id, handler);
+    }
+
+    private void serve() {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (true) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        SocketChannel channel = server.accept();
+                        if (channel == null) continue;
+                        channel.configureBlocking(false);
+                        channel.register(selector, SelectionKey.OP_READ, new Connection());
+                    } else if (key.isReadable()) {
+                        read(key, buf);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void read(SelectionKey key, ByteBuffer buf) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection conn = (Connection) key.attachment();
+        int n;
+        try {
+            buf.clear();
+            n = channel.read(buf);
+        } catch (IOException e) {
+            n = -1;
+        }
+        for (int i = 0; i < Math.max(n, 0); i++) {
+            byte b = buf.get(i);
+            if (b != '\n') {
+                conn.partial.write(b);
+                continue;
+            }
+            String line = conn.partial.toString(StandardCharsets.UTF_8);
+            conn.partial.reset();
+            if (!handle(conn, line)) {
+                n = -1;
+                break;
+            }
+        }
+        if (n < 0) {
+            if (conn.handler != null) {
+                try {
+                    conn.handler.onClosed();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private boolean handle(Connection conn, String line) {
+        // Returns false to drop a connection that has not identified itself with the right token
+        String[] parts = line.split("\t", parts(line));
+        if (conn.handler == null) {
+            if (parts.length < 3 || !parts[0].equals("HELLO") || !parts[1].equals(token)) return false;
+            try {
+                conn.handler = handlers.remove(Long.parseLong(parts[2]));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return conn.handler != null;
+        }
+        try {
+            switch (parts[0]) {
+                case "PID":
+                    conn.handler.onPid(Long.parseLong(parts[1]));
+                    break;
+                case "OUTPUT":
+                    conn.handler.onOutput(Long.parseLong(parts[1]), parts.length > 2 ? parts[2] : "");
+                    break;
+                case "LINE":
+                    conn.handler.onLine(parts[1].equals("err"), Long.parseLong(parts[2]), parts.length > 3 ? parts[3] : "");
+                    break;
+                case "UNSTREAMED":
+                    conn.handler.onUnstreamed();
+                    break;
+                case "EXIT":
+                    ExitReport report = ExitReport.parse(line.split("\t"), 1);
+                    if (report != null) conn.handler.onExit(report);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    private static int parts(String line) {
+        // The last field of OUTPUT and LINE reports is program output, which may itself contain tabs
+        return line.startsWith("LINE\t") ? 4 : 3;
+    }
+}
@@ -0,0 +1,61 @@
+package process;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Launch latencies of recent runs, as measured by the launch handshake
+public class LaunchStats {
+    public static final int MAX_SAMPLES = 1000;
+
+    private final ArrayDeque<Long> pidLatencies = new ArrayDeque<>();
+    private final ArrayDeque<Long> outputLatencies = new ArrayDeque<>();
+    private int launches = 0;
+    // Runs whose first output took longer than the old first-line timeout, and would have been marked as failed
+    private int slowStarts = 0;
+
+    synchronized void recordPid(long millis) {
+        launches++;
+        add(pidLatencies, millis);
+    }
+
+    synchronized void recordOutput(long millis) {
+        if (millis > ProcessManager.SLOW_START) slowStarts++;
+        add(outputLatencies, millis);
+    }
+
+    private static void add(ArrayDeque<Long> samples, long millis) {
+        if (samples.size() == MAX_SAMPLES) samples.removeFirst();
+        samples.addLast(millis);
+    }
+
+    public synchronized int getLaunches() {
+        return launches;
+    }
+
+    public synchronized int getSlowStarts() {
+        return slowStarts;
+    }
+
+    // Milliseconds from launch until the TransRot PID was known
+    public synchronized long getPidLatency(double percentile) {
+        return percentile(pidLatencies, percentile);
+    }
+
+    // Milliseconds from TransRot process start until its first output line (JVM startup + TransRot setup)
+    public synchronized long getOutputLatency(double percentile) {
+        return percentile(outputLatencies, percentile);
+    }
+
+    private static long percentile(ArrayDeque<Long> samples, double percentile) {
+        if (samples.isEmpty()) return -1;
+        long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile / 100 * (sorted.length - 1)))];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d launches; PID known after %d ms (p50) / %d ms (max); first output after %d ms (p50) / %d ms (max); %d slow starts",
+                launches, getPidLatency(50), getPidLatency(100), getOutputLatency(50), getOutputLatency(100), slowStarts);
+    }
+}
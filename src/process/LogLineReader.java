@@ -0,0 +1,91 @@
+package process;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class LogLineReader implements Closeable {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    public interface LineHandler {
+        void onLine(String line, long offset);
+    }
+
+    private final File file;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel = null;
+
+    // Bytes of a line whose terminator has not been written yet; kept as bytes so split UTF-8 sequences decode correctly
+    private byte[] partial = new byte[256];
+    private int partialLen = 0;
+
+    private long readPos = 0;
+    private long lineStart = 0;
+
+    public LogLineReader(File file) {
+        this.file = file;
+    }
+
+    public int read(LineHandler handler) throws IOException {
+        // Reads every complete line appended since the last call; returns the number of lines handled
+        if (channel == null) channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        int lines = 0;
+        while (true) {
+            buffer.clear();
+            int n = channel.read(buffer, readPos);
+            if (n <= 0) break;
+            buffer.flip();
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) != '\n') continue;
+                append(start, i);
+                int len = partialLen;
+                if (len > 0 && partial[len - 1] == '\r') len--;
+                handler.onLine(new String(partial, 0, len, StandardCharsets.UTF_8), lineStart);
+                lines++;
+                partialLen = 0;
+                lineStart = readPos + i + 1;
+                start = i + 1;
+            }
+            append(start, n);
+            readPos += n;
+        }
+        return lines;
+    }
+
+    private void append(int from, int to) {
+        int len = to - from;
+        if (len <= 0) return;
+        if (partialLen + len > partial.length) partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLen + len));
+        buffer.position(from);
+        buffer.get(partial, partialLen, len);
+        partialLen += len;
+    }
+
+    public void seek(long offset) {
+        // Resumes reading at a line boundary, discarding any partial line
+        readPos = offset;
+        lineStart = offset;
+        partialLen = 0;
+    }
+
+    // Offset just past the last complete line, which is where a later reader should resume
+    public long getPosition() {
+        return lineStart;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+        channel = null;
+    }
+}
@@ -0,0 +1,44 @@
+package process;
+
+import javax.swing.AbstractListModel;
+import java.util.List;
+
+public class LogListModel extends AbstractListModel<String> {
+    private List<String> lines;
+    private int size;
+
+    public LogListModel(List<String> lines) {
+        this.lines = lines;
+        this.size = lines.size();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        // Lines are resolved lazily, so only rows being painted are ever read
+        return lines.get(index);
+    }
+
+    public void setLines(List<String> lines) {
+        // Swaps in a different backing log, e.g. the full log in place of a finished run's tail preview
+        int oldSize = size;
+        this.lines = lines;
+        this.size = lines.size();
+        if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+        if (size > 0) fireIntervalAdded(this, 0, size - 1);
+    }
+
+    public boolean refresh() {
+        // Publishes lines appended to the backing log since the last refresh; must be called on the EDT
+        int newSize = lines.size();
+        if (newSize <= size) return false;
+        int oldSize = size;
+        size = newSize;
+        fireIntervalAdded(this, oldSize, newSize - 1);
+        return true;
+    }
+}
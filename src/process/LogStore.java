@@ -0,0 +1,195 @@
+package process;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+public class LogStore {
+    // Number of most recent lines kept on the heap; older lines are read back from the log file on demand
+    public static final int TAIL_LINES = Integer.getInteger("vtr.logTailLines", 5000);
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int TAIL_BLOCK_SIZE = 8 * 1024;
+    private static final int TAIL_MAX_BYTES = 1024 * 1024;
+
+    private static class Chunk {
+        final int firstLine;
+        final byte[] data;
+        int[] ends = new int[256];
+        int count = 0;
+        int used = 0;
+
+        Chunk(int firstLine, int capacity) {
+            this.firstLine = firstLine;
+            this.data = new byte[capacity];
+        }
+    }
+
+    private final File file;
+    private final int tailLines;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<String> view = new View();
+
+    // Byte offset of every line in the file, used to serve lines that have left the in-memory tail
+    private long[] offsets = new long[1024];
+    private int size = 0;
+    private FileChannel channel = null;
+
+    public LogStore(File file) {
+        this(file, TAIL_LINES);
+    }
+
+    public LogStore(File file, int tailLines) {
+        this.file = file;
+        this.tailLines = Math.max(1, tailLines);
+    }
+
+    public synchronized void add(String line, long offset) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (size == offsets.length) offsets = Arrays.copyOf(offsets, size * 2);
+        offsets[size] = offset;
+
+        Chunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.used + bytes.length > chunk.data.length) {
+            chunk = new Chunk(size, Math.max(CHUNK_SIZE, bytes.length));
+            chunks.add(chunk);
+        }
+        System.arraycopy(bytes, 0, chunk.data, chunk.used, bytes.length);
+        chunk.used += bytes.length;
+        if (chunk.count == chunk.ends.length) chunk.ends = Arrays.copyOf(chunk.ends, chunk.count * 2);
+        chunk.ends[chunk.count++] = chunk.used;
+        size++;
+
+        // drops whole chunks once the lines after them still cover the tail
+        while (chunks.size() > 1 && size - chunks.get(1).firstLine >= tailLines) {
+            chunks.remove(0);
+        }
+    }
+
+    public synchronized String get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Line " + i + " of " + size);
+        if (i >= chunks.get(0).firstLine) {
+            Chunk chunk = findChunk(i);
+            int local = i - chunk.firstLine;
+            int start = local == 0 ? 0 : chunk.ends[local - 1];
+            return new String(chunk.data, start, chunk.ends[local] - start, StandardCharsets.UTF_8);
+        }
+        return readFromDisk(i);
+    }
+
+    private Chunk findChunk(int line) {
+        int lo = 0, hi = chunks.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (chunks.get(mid).firstLine <= line) lo = mid;
+            else hi = mid - 1;
+        }
+        return chunks.get(lo);
+    }
+
+    private String readFromDisk(int i) {
+        // Lines outside the tail always have a successor, so their extent is known from the index
+        long start = offsets[i];
+        int len = (int) (offsets[i + 1] - start);
+        try {
+            if (channel == null) channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            ByteBuffer buf = ByteBuffer.allocate(len);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, start + buf.position()) < 0) break;
+            }
+            while (len > 0 && (buf.get(len - 1) == '\n' || buf.get(len - 1) == '\r')) len--;
+            return new String(buf.array(), 0, len, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized String getLast() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    public synchronized int getMemoryLines() {
+        return chunks.isEmpty() ? 0 : size - chunks.get(0).firstLine;
+    }
+
+    public synchronized void close() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    public static List<String> readTail(File file, int maxLines) throws IOException {
+        // Reads backwards from the end of a file until maxLines complete lines (or TAIL_MAX_BYTES) have been read
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = ch.size();
+            long pos = end;
+            byte[] data = new byte[0];
+            int newlines = 0;
+            while (pos > 0 && newlines <= maxLines && data.length < TAIL_MAX_BYTES) {
+                int len = (int) Math.min(TAIL_BLOCK_SIZE, pos);
+                pos -= len;
+                ByteBuffer block = ByteBuffer.allocate(len);
+                while (block.hasRemaining()) {
+                    if (ch.read(block, pos + block.position()) < 0) break;
+                }
+                for (int i = 0; i < len; i++) {
+                    // a terminator at the very end of the file does not start a new line
+                    if (block.get(i) == '\n' && pos + i != end - 1) newlines++;
+                }
+                byte[] joined = new byte[len + data.length];
+                System.arraycopy(block.array(), 0, joined, 0, len);
+                System.arraycopy(data, 0, joined, len, data.length);
+                data = joined;
+            }
+
+            List<String> lines = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i <= data.length; i++) {
+                if (i < data.length && data[i] != '\n') continue;
+                // the first segment may be a partial line unless the start of the file was reached
+                if ((start > 0 || pos == 0) && !(i == data.length && start == data.length)) {
+                    int lineEnd = i;
+                    if (lineEnd > start && data[lineEnd - 1] == '\r') lineEnd--;
+                    lines.add(new String(data, start, lineEnd - start, StandardCharsets.UTF_8));
+                }
+                start = i + 1;
+            }
+            return lines.size() > maxLines ? new ArrayList<>(lines.subList(lines.size() - maxLines, lines.size())) : lines;
+        }
+    }
+
+    // Read-only, random-access view that resolves lines lazily
+    public List<String> view() {
+        return view;
+    }
+
+    private class View extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return LogStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return LogStore.this.size();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package process;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LogTailService {
+    // Fallback rescan intervals, used when no file events arrive; polling-based watchers (e.g. macOS) need a tighter interval
+    public static final int FALLBACK_FREQ = 2000;
+    public static final int FALLBACK_FREQ_POLLING = 250;
+
+    private static LogTailService Instance = null;
+
+    public static synchronized LogTailService getInstance() {
+        if (Instance == null)
+            Instance = new LogTailService();
+        return Instance;
+    }
+
+    private final Set<ProcessStruct> tailed = ConcurrentHashMap.newKeySet();
+    private final Map<String, ProcessStruct> byFileName = new ConcurrentHashMap<>();
+    private final BlockingQueue<ProcessStruct> pending = new LinkedBlockingQueue<>();
+
+    private WatchService watcher;
+    private int fallbackFreq = FALLBACK_FREQ_POLLING;
+
+    private LogTailService() {
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            ProcessManager.logDir.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            if (!watcher.getClass().getName().contains("Polling")) fallbackFreq = FALLBACK_FREQ;
+            watchThread();
+        } catch (IOException | UnsupportedOperationException e) {
+            // No native file events; the tail thread falls back to polling alone
+            e.printStackTrace();
+            watcher = null;
+        }
+        tailThread();
+    }
+
+    private void watchThread() {
+        // Blocks on file events in the log directory and queues the owning process for reading
+        Thread t = new Thread(() -> {
+            while (true) {
+                WatchKey key;
+                try {
+                    key = watcher.take();
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        pending.addAll(tailed);
+                        continue;
+                    }
+                    ProcessStruct ps = byFileName.get(event.context().toString());
+                    if (ps != null) pending.offer(ps);
+                }
+                key.reset();
+            }
+        }, "log-watch");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void tailThread() {
+        // A single thread reads new output for every monitored process, regardless of how many are registered
+        Thread t = new Thread(() -> {
+            while (true) {
+                try {
+                    ProcessStruct ps = pending.poll(fallbackFreq, TimeUnit.MILLISECONDS);
+                    if (ps != null) {
+                        read(ps);
+                        ProcessStruct next;
+                        while ((next = pending.poll()) != null) read(next);
+                    } else {
+                        // fallback rescan in case an event was missed
+                        for (ProcessStruct tailedPs : tailed) read(tailedPs);
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "log-tail");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void read(ProcessStruct ps) {
+        if (!tailed.contains(ps)) return;
+        try {
+            if (!ps.readLogs()) unregister(ps);
+        } catch (Exception e) {
+            e.printStackTrace();
+            unregister(ps);
+        }
+    }
+
+    public void register(ProcessStruct ps) {
+        tailed.add(ps);
+        if (ps.getStdoutFile() != null) byFileName.put(ps.getStdoutFile().getName(), ps);
+        if (ps.getStderrFile() != null) byFileName.put(ps.getStderrFile().getName(), ps);
+        pending.offer(ps);
+    }
+
+    public void unregister(ProcessStruct ps) {
+        tailed.remove(ps);
+        byFileName.values().removeIf(p -> p == ps);
+    }
+
+    // Requests an immediate read, e.g. after a process exits so its final output is collected
+    public void wake(ProcessStruct ps) {
+        pending.offer(ps);
+    }
+
+    public int getTailedCount() {
+        return tailed.size();
+    }
+}
@@ -0,0 +1,57 @@
+package process;
+
+import util.Globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Optional;
+
+public class ProcessDiscovery {
+    // A recorded launch timestamp is taken just before the process is spawned; allow for clock granularity
+    public static final long START_TOLERANCE = 5000;
+    // Upper bound between launch and process start (the Windows wrapper starts TransRot as a grandchild)
+    public static final long MAX_START_DELAY = 120000;
+
+    private static final String JAR_NAME = "TransRot.jar";
+    private static final boolean PROC_FS = Files.isDirectory(Paths.get("/proc/self"));
+
+    // Whether a registered run is still running: its own process, or for a run in a pooled worker, the worker without an exit file for the run
+    public static boolean isRunning(ProcessRegistry.Record record) {
+        if (record.getExitStatus() != null) return false;
+        if (record.getWorker() == null) return isTransRot(record.getPid(), record.getTimestamp());
+        return record.getTimestamp() != null && !new File(Globals.pidsPath, record.getTimestamp() + ".exit").exists() && isTransRot(record.getWorker(), null);
+    }
+
+    public static boolean isTransRot(long pid, Long timestamp) {
+        Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+        if (handle.isEmpty() || !handle.get().isAlive()) return false;
+        ProcessHandle.Info info = handle.get().info();
+
+        String commandLine = info.commandLine().orElse(null);
+        if (commandLine == null && PROC_FS) commandLine = readProcCommandLine(pid);
+        if (commandLine == null || !commandLine.contains(JAR_NAME)) return false;
+
+        // A live TransRot process that started outside the launch window is a reused PID, not our run
+        if (timestamp == null) return true;
+        Instant start = info.startInstant().orElse(null);
+        if (start == null) return true;
+        long startMillis = start.toEpochMilli();
+        return startMillis >= timestamp - START_TOLERANCE && startMillis <= timestamp + MAX_START_DELAY;
+    }
+
+    private static String readProcCommandLine(long pid) {
+        // ProcessHandle.Info may be empty for processes it cannot inspect; /proc/<pid>/cmdline is NUL-separated
+        Path cmdline = Paths.get("/proc", Long.toString(pid), "cmdline");
+        try {
+            byte[] bytes = Files.readAllBytes(cmdline);
+            return new String(bytes, StandardCharsets.UTF_8).replace('\0', ' ').trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -2,16 +2,13 @@ package process;
 
 import util.Globals;
 
-import javax.sound.sampled.Port;
 import javax.swing.*;
+import javax.swing.border.Border;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class ProcessGUI extends JFrame {
@@ -23,11 +20,19 @@ public class ProcessGUI extends JFrame {
         return Instance;
     }
 
-    private List<ProcessStruct> lastPSs = new ArrayList<>();
+    // Returns the monitor only if it has been opened and is currently visible on screen
+    public static ProcessGUI getShownInstance() {
+        if (Instance == null || !Instance.isShowing() || (Instance.getExtendedState() & JFrame.ICONIFIED) != 0) return null;
+        return Instance;
+    }
+
+    private static final Border HEADER_BORDER = BorderFactory.createMatteBorder(0, 0, 1, 1, Globals.accentColorDark);
+    private static final Border CELL_BORDER = BorderFactory.createEmptyBorder(2, 5, 2, 5);
 
     private final JTable table;
-    private final DefaultTableModel tModel;
+    private final ProcessTableModel tModel;
     private final JButton endTaskBtn;
+    private final JLabel queueLabel;
 
     private ProcessGUI() {
         super("Process Monitor");
@@ -38,12 +43,7 @@ public class ProcessGUI extends JFrame {
         contentPane.setLayout(new BoxLayout(contentPane, BoxLayout.Y_AXIS));
         contentPane.setBackground(Globals.menuBgColorLight);
 
-        tModel = new DefaultTableModel(new String[]{"PID", "Process Name", "Started At", "Elapsed Time", "Status", "Details"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tModel = new ProcessTableModel();
         table = new JTable(tModel);
         table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         TableRowSorter<TableModel> sorter = new TableRowSorter<>(table.getModel());
@@ -69,7 +69,7 @@ public class ProcessGUI extends JFrame {
             public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             JLabel label = (JLabel) defaultRenderer.getTableCellRendererComponent(
                     table, value, isSelected, hasFocus, row, column);
-            label.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 1, Globals.accentColorDark));
+            label.setBorder(HEADER_BORDER);
             return label;
             }
         });
@@ -89,11 +89,12 @@ public class ProcessGUI extends JFrame {
                 @Override
                 public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
                 Component c;
-                if (finalI == table.getColumnCount() - 1) c = lastColRenderer.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                boolean queued = table.getValueAt(row, 4) == ProcessStruct.ProcessStatus.QUEUED;
+                if (finalI == table.getColumnCount() - 1 && !queued) c = lastColRenderer.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
                 else c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                ((JComponent) c).setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+                ((JComponent) c).setBorder(CELL_BORDER);
                 if (isSelected) return c;
-                if (lastPSs.get(table.convertRowIndexToModel(row)).getStatus() == ProcessStruct.ProcessStatus.ALIVE) {
+                if (table.getValueAt(row, 4) == ProcessStruct.ProcessStatus.ALIVE) {
                     c.setBackground(Globals.accentColorLight);
                 } else {
                     c.setBackground(Globals.bgColor);
@@ -105,8 +106,13 @@ public class ProcessGUI extends JFrame {
         endTaskBtn = new JButton("End Task");
         endTaskBtn.addActionListener(e -> {
             if (table.getSelectedRow() == -1) return;
-            ProcessStruct ps = lastPSs.get(table.convertRowIndexToModel(table.getSelectedRow()));
-            if (ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) {
+            int modelRow = table.convertRowIndexToModel(table.getSelectedRow());
+            ProcessStruct ps = tModel.getProcessAt(modelRow);
+            if (ps == null) {
+                // removes a run from the queue before it starts
+                RunQueue.getInstance().cancel(tModel.getQueuedAt(modelRow));
+                endTaskBtn.setEnabled(false);
+            } else if (ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) {
                 // kills active process
                 ps.destroyIfAlive();
             } else {
@@ -129,9 +135,13 @@ public class ProcessGUI extends JFrame {
                 if (row == -1) return;
                 int column = table.columnAtPoint(e.getPoint());
                 int modelRow = table.convertRowIndexToModel(row);
-                ProcessStruct ps = lastPSs.get(modelRow);
-                endTaskBtn.setText(ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE ? "End Task" : "Dismiss Process");
+                ProcessStruct ps = tModel.getProcessAt(modelRow);
                 endTaskBtn.setEnabled(true);
+                if (ps == null) {
+                    endTaskBtn.setText("Cancel Run");
+                    return;
+                }
+                endTaskBtn.setText(ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE ? "End Task" : "Dismiss Process");
                 if (column == table.getColumnCount() - 1) ProcessSubframe.openProcessFrame(ps);
             }
         });
@@ -163,17 +173,17 @@ public class ProcessGUI extends JFrame {
         sp.setOpaque(false);
         contentPane.add(sp);
 
+        queueLabel = new JLabel();
+        queueLabel.setFont(Globals.settingsFontNoBold);
+        queueLabel.setBorder(BorderFactory.createEmptyBorder(12, 12, 0, 12));
+        queueLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        contentPane.add(queueLabel);
+
         JPanel endTaskPanel = new JPanel(new BorderLayout());
         endTaskPanel.setOpaque(false);
         JButton dismissAllBtn = new JButton("Dismiss All Completed Processes");
         dismissAllBtn.addActionListener(e -> {
-            lastPSs.stream().filter(ps -> ps.getStatus() != ProcessStruct.ProcessStatus.ALIVE).forEach(ps -> {
-                try {
-                    ProcessManager.getInstance().dismissProcess(ps);
-                } catch (IOException ioException) {
-                    ioException.printStackTrace();
-                }
-            });
+            ProcessManager.getInstance().dismissProcesses(tModel.getProcesses().stream().filter(ps -> ps.getStatus() != ProcessStruct.ProcessStatus.ALIVE).collect(Collectors.toList()));
             endTaskBtn.setEnabled(false);
             updateGUI();
         });
@@ -200,46 +210,18 @@ public class ProcessGUI extends JFrame {
     }
 
     public void updateGUI() {
-        List<ProcessStruct> processes = new ArrayList<>(ProcessManager.getInstance().getProcesses());
-        List<Long> newPIDs = processes.stream().map(ProcessStruct::getPid).collect(Collectors.toList());
-        processes.sort((ps1, ps2) -> {
-            if (ps1.getStatus() != ps2.getStatus()) {
-                return ps1.getStatus().ordinal() - ps2.getStatus().ordinal();
-            }
-            return -ps1.getStartTime().compareTo(ps2.getStartTime());
-        });
-
-        for (int i = 0, outerI = 0; i < processes.size(); i++, outerI++) {
-            ProcessStruct ps = processes.get(i);
-            if (!lastPSs.stream().map(ProcessStruct::getPid).collect(Collectors.toList()).contains(ps.getPid())) {
-                // new PID
-                tModel.addRow(new Object[]{ps.getPid(), ps.getName(), ps.getStartStr(), ps.getExecTime(), ps.getStatus(), "<html><u>View logs & other details</u></html>"});
-                outerI--;
-            } else {
-                if (!(tModel.getValueAt(outerI, 0)).equals(ps.getPid())) tModel.setValueAt(ps.getPid(), outerI, 0);
-                if (!(tModel.getValueAt(outerI, 1)).equals(ps.getName())) tModel.setValueAt(ps.getName(), outerI, 1);
-                if (!(tModel.getValueAt(outerI, 2)).equals(ps.getStartStr())) tModel.setValueAt(ps.getStartStr(), outerI, 2);
-                if (!(tModel.getValueAt(outerI, 3)).equals(ps.getExecTime())) {
-                    tModel.setValueAt(ps.getExecTime(), outerI, 3);
-                }
-                if (!(tModel.getValueAt(outerI, 4)).equals(ps.getStatus())) tModel.setValueAt(ps.getStatus(), outerI, 4);
-            }
-        }
-        AtomicInteger c = new AtomicInteger();
-        lastPSs.stream().filter(ps -> !newPIDs.contains(ps.getPid())).forEach(ps -> {
-            int i = lastPSs.indexOf(ps);
-            tModel.removeRow(i - c.get());
-            c.getAndIncrement();
-        });
-
-        lastPSs = new ArrayList<>(processes);
-        table.repaint();
-        table.revalidate();
+        RunQueue queue = RunQueue.getInstance();
+        List<RunQueue.QueuedRun> queued = queue.getQueued();
+        tModel.update(ProcessManager.getInstance().getProcesses(), queued);
+        QueueStats stats = queue.getStats();
+        queueLabel.setText(String.format("%d queued (up to %d runs at once)  |  %.1f runs/hour  |  %.0f%% core utilisation",
+                queued.size(), RunQueue.MAX_RUNS, stats.getRunsPerHour(), stats.getCoreUtilisation() * 100));
     }
 
     @Override
     public void setVisible(boolean b) {
         if (b) setExtendedState(JFrame.NORMAL);
         super.setVisible(b);
+        if (b) updateGUI();
     }
 }
\ No newline at end of file
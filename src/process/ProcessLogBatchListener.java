@@ -0,0 +1,8 @@
+package process;
+
+import java.util.List;
+
+public interface ProcessLogBatchListener {
+    void onStdout(List<String> lines);
+    void onStderr(List<String> lines);
+}
@@ -5,120 +5,221 @@ import util.Globals;
 import javax.swing.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class ProcessManager {
-    public static final int UPDATE_FREQ = 100;
-    public static final int FIRST_LINE_TIMEOUT = 3000;
-    private final List<ProcessStruct> processes = new ArrayList<>();
+    // Runs used to be marked as failed when their first output took longer than this; now only counted in LaunchStats
+    public static final int SLOW_START = 3000;
+    public static final int PID_POLL_FREQ = 50;
+    public static final int FIRST_LINE_POLL_FREQ = 50;
+    // How often the registry is checked for runs launched or dismissed by other VTR instances
+    public static final int REGISTRY_SYNC_FREQ = 1000;
+    // Launch runs through the Supervisor daemon (-Dvtr.supervisor=true), which keeps monitoring them while VTR is closed
+    public static final boolean USE_SUPERVISOR = Boolean.getBoolean("vtr.supervisor");
+    // Log lines are streamed from each run's Wrapper as they are written, instead of being tailed from the log files
+    public static final boolean PIPE_LOGS = Boolean.getBoolean("vtr.pipeLogs");
+    public static final int RECONNECT_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private final Map<Long, ProcessStruct> processes = new ConcurrentHashMap<>();
+    // Bumped after every add/remove; a snapshot is current only while its version matches
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, Collections.emptyList()));
 
-    File processInfoFile;
+    private static class Snapshot {
+        final long version;
+        final List<ProcessStruct> processes;
 
-    public static Properties properties;
+        Snapshot(long version, List<ProcessStruct> processes) {
+            this.version = version;
+            this.processes = processes;
+        }
+    }
+
+    private ProcessRegistry registry;
+    private final ProcessTasks tasks = new ProcessTasks();
+    private final Set<Long> adopting = ConcurrentHashMap.newKeySet();
+    private SupervisorClient supervisor = null;
+    private final LaunchReports launchReports = LaunchReports.open();
+    private final LaunchStats launchStats = new LaunchStats();
+    private final List<RunEndListener> runEndListeners = new CopyOnWriteArrayList<>();
+    // Runs owned by the supervisor, by launch timestamp; the supervisor's PID for a run is its Wrapper's
+    private volatile Map<Long, SupervisorClient.RunInfo> supervisedRuns = Collections.emptyMap();
 
     public static File logDir;
 
     private static ProcessManager Instance = null;
 
-    public static ProcessManager getInstance() {
+    public static synchronized ProcessManager getInstance() {
         if (Instance == null)
             Instance = new ProcessManager();
         return Instance;
     }
 
     private ProcessManager() {
-        processInfoFile = new File(Globals.propertiesPath);
         logDir = new File(Globals.logsPath);
         if (!logDir.exists()) {
             logDir.mkdir();
         }
-        properties = new Properties();
         try {
-            if (!processInfoFile.exists()) processInfoFile.createNewFile();
-            readProps();
+            registry = new ProcessRegistry(new File(Globals.propertiesPath));
+            registry.addListener(new ProcessRegistryListener() {
+                @Override
+                public void onRecordChanged(long pid) {
+                    remoteRecordChanged(pid);
+                }
+
+                @Override
+                public void onRecordRemoved(long pid) {
+                    ProcessStruct ps = processes.get(pid);
+                    if (ps != null) untrack(Collections.singletonList(ps));
+                }
+            });
+            tasks.repeat(ProcessTasks.NO_PROCESS, "registry-sync", () -> {
+                registry.refresh();
+                return true;
+            }, REGISTRY_SYNC_FREQ, REGISTRY_SYNC_FREQ);
         } catch (IOException e) {
             e.printStackTrace();
         }
-        guiUpdateThread();
+        ResourceSampler.getInstance().start(tasks);
+        // workers are started ahead of the first run
+        if (WorkerPool.WORKERS > 0) WorkerPool.getInstance();
+        RunQueue.getInstance().start(tasks);
+        RefreshScheduler.getInstance();
     }
 
-    private void guiUpdateThread() {
-        // A thread is used to update the Process Monitor frequently to relay process status changes, additions, uptime, and more in real time
-        Thread updateThread = new Thread(() -> {
-            while (true) {
-                try {
-                    SwingUtilities.invokeLater(() -> {
-                        // update main GUI
-                        ProcessGUI.getInstance().updateGUI();
-                        // update process subframes
-                        ProcessSubframe.updateAll();
-                    });
-
-                    Thread.sleep(UPDATE_FREQ);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+    // Called when the GUI is initially opened; translates all saved PIDs into ProcessStructs for monitoring
+    // Processes are resolved in the background with bounded parallelism, and each appears in the monitor as soon as it is ready
+    public void connectProcesses() {
+        long start = System.nanoTime();
+        SupervisorClient client = getSupervisor();
+        if (client != null) {
+            try {
+                Map<Long, SupervisorClient.RunInfo> runs = new HashMap<>();
+                client.list().values().forEach(run -> runs.put(run.getTimestamp(), run));
+                supervisedRuns = runs;
+            } catch (IOException e) {
+                e.printStackTrace();
+                dropSupervisor(client);
             }
+        }
+        List<Long> pids = registry.getPids();
+        if (pids.isEmpty()) return;
+
+        AtomicLong discoveryNanos = new AtomicLong();
+        AtomicLong loadNanos = new AtomicLong();
+        int threads = Math.min(RECONNECT_THREADS, pids.size());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "reconnect");
+            t.setDaemon(true);
+            return t;
+        });
+        List<CompletableFuture<Void>> reconnects = pids.stream().map(pid -> CompletableFuture.runAsync(() -> {
+            if (processes.containsKey(pid)) return;
+            long t0 = System.nanoTime();
+            // runs already journaled as exited need no discovery
+            ProcessRegistry.Record record = registry.get(pid);
+            SupervisorClient.RunInfo run = record == null ? null : supervisedRuns.get(record.getTimestamp());
+            boolean alive;
+            // runs owned by the supervisor are known exactly, so the process table is not inspected
+            if (run != null && record != null && Objects.equals(record.getTimestamp(), run.getTimestamp())) alive = run.isAlive();
+            else alive = record != null && ProcessDiscovery.isRunning(record);
+            long t1 = System.nanoTime();
+            ProcessStruct ps = new ProcessStruct(pid, alive ? null : Collections.emptyList());
+            // files are only read for the struct that tracks the PID, as a launch of this instance may have won it
+            if (addProcess(ps)) ps.retrieveFiles();
+            discoveryNanos.addAndGet(t1 - t0);
+            loadNanos.addAndGet(System.nanoTime() - t1);
+            RefreshScheduler.getInstance().markDirty();
+        }, pool)).collect(Collectors.toList());
+
+        CompletableFuture.allOf(reconnects.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+            pool.shutdown();
+            if (e != null) e.printStackTrace();
+            StartupStats.getInstance().recordReconnect(pids.size(), threads, (System.nanoTime() - start) / 1000000,
+                    discoveryNanos.get() / 1000000, loadNanos.get() / 1000000);
         });
-        updateThread.setDaemon(true);
-        updateThread.start();
     }
 
-    // Called when the GUI is initially opened; translates all saved PIDs into ProcessStructs for monitoring
-    public void connectProcesses() throws IOException {
-        List<Long> validPIDs = loadEligibleProcesses();
-        List<Long> pids = Arrays.stream(properties.getProperty("pids", "").split(",")).filter(p -> p.length() > 0).map(Long::parseLong).collect(Collectors.toList());
-        pids.forEach(pid -> {
-            if (processes.stream().noneMatch(p -> p.matches(pid))) {
-                ProcessStruct ps = new ProcessStruct(pid, validPIDs);
-                processes.add(ps);
-                ps.retrieveFiles();
+    private void remoteRecordChanged(long pid) {
+        // Another instance launched, named or finished a run; runs are adopted once their output folder is known
+        ProcessRegistry.Record record = registry.get(pid);
+        if (record == null) return;
+        ProcessStruct ps = processes.get(pid);
+        if (ps != null) {
+            if (record.getName() != null) ps.rename(record.getName());
+            return;
+        }
+        if (record.getDirectory() == null || !adopting.add(pid)) return;
+        tasks.submit(pid, "adopt", () -> {
+            try {
+                if (processes.containsKey(pid)) return;
+                boolean alive = ProcessDiscovery.isRunning(record);
+                ProcessStruct adopted = new ProcessStruct(pid, alive ? null : Collections.emptyList());
+                if (addProcess(adopted)) adopted.retrieveFiles();
+            } finally {
+                adopting.remove(pid);
             }
         });
     }
 
-    // Creates a quick process with 'jps -l', which determines which PIDs correspond to current TransRot instances
-    private List<Long> loadEligibleProcesses() throws IOException {
-        List<Long> validPIDs = new ArrayList<>();
-        Process proc = new ProcessBuilder("jps", "-l").start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.trim().split("\\s+", 2);
-                if (parts.length >= 2) {
-                    try {
-                        long listedPid = Long.parseLong(parts[0]);
-                        if (parts[1].contains("TransRot.jar")) {
-                            validPIDs.add(listedPid);
-                        }
-                    } catch (NumberFormatException ignored) {}
-                }
+    // Launches a run right away and returns its launch timestamp; runs started from the GUI go through RunQueue
+    public long runProcess(String name, List<String> arguments) throws IOException {
+        // Creates log files; runs are keyed by their timestamp, which is claimed by creating the stdout log, so runs
+        // launched in the same millisecond, by this or another instance, get the next free one
+        long claimed = System.currentTimeMillis();
+        while (!new File(logDir, "stdout_" + claimed + ".log").createNewFile()) claimed++;
+        long timestamp = claimed;
+        File stdoutFile = new File(logDir, "stdout_" + timestamp + ".log");
+        File stderrFile = new File(logDir, "stderr_" + timestamp + ".log");
+        if (!stderrFile.exists()) stderrFile.createNewFile();
+
+        // Runs are started through Wrapper, which reports the TransRot PID, its first output line and its exit back to
+        // this instance; the run is registered once its PID arrives
+        List<String> command = new ArrayList<>(List.of("java", "-jar", Globals.wrapperPath, String.valueOf(timestamp), "java", "-jar", Globals.jarPath));
+        arguments.stream().map(arg -> arg.replaceAll("\"", "")).forEach(command::add);
+        if (launchReports != null) launchReports.expect(timestamp, launchHandler(name, timestamp, stdoutFile));
+        Map<String, String> env = new HashMap<>();
+        if (launchReports != null) env.put("VTR_REPORT", launchReports.getAddress());
+        if (launchReports != null && PIPE_LOGS) env.put("VTR_STREAM", "1");
+
+        if (WorkerPool.WORKERS > 0 && launchReports != null && WorkerPool.getInstance().isAvailable()) {
+            try {
+                WorkerPool.getInstance().run(timestamp, launchReports.getAddress(), PIPE_LOGS, stdoutFile, stderrFile,
+                        arguments.stream().map(arg -> arg.replaceAll("\"", "")).collect(Collectors.toList()));
+                return timestamp;
+            } catch (IOException e) {
+                // falls back to launching the run in a JVM of its own
+                e.printStackTrace();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return validPIDs;
-    }
 
-    public void runProcess(String name, List<String> arguments) throws IOException {
-        long timestamp = System.currentTimeMillis();
-        // Creates log files
-        String stdout = "stdout_" + timestamp + ".log";
-        String stderr = "stderr_" + timestamp + ".log";
-        File stdoutFile = new File(logDir, stdout);
-        if (!stdoutFile.exists()) stdoutFile.createNewFile();
-        File stderrFile = new File(logDir, stderr);
-        if (!stderrFile.exists()) stderrFile.createNewFile();
+        // supervised runs are only tracked through their launch reports
+        if (launchReports != null && getSupervisor() != null) {
+            try {
+                launchSupervised(timestamp, command, env, stdoutFile, stderrFile);
+                return timestamp;
+            } catch (IOException | IllegalArgumentException e) {
+                // falls back to launching the run directly
+                e.printStackTrace();
+            }
+        }
 
         // Running independent child processes is platform-dependent
         String os = System.getProperty("os.name").toLowerCase();
         if (os.contains("win")) {
             /* Windows requires the use of Powershell's 'Start-Process' command
                This runs the process independently, but wraps the process making monitoring it more difficult
-               Output redirection is natively supported, but for PID tracking, a custom Wrapper.java acts as
-               middleware to output PID to a temporary file and start TransRot independently */
+               Output redirection is natively supported, and the Wrapper reports the PID of the TransRot process
+               it starts (or, without a report channel, writes it to a temporary file) */
 
             List<String> winArgs = new ArrayList<>(
                     List.of("powershell", "-Command",
@@ -127,123 +228,308 @@ public class ProcessManager {
                             "-RedirectStandardOutput '" + stdoutFile.getPath() + "' " +
                             "-RedirectStandardError '" + stderrFile.getPath() + "'")
             );
-            new ProcessBuilder(winArgs).start();
-
-            // Another thread is used to read the PID when written and save it
-            Thread pidThread = new Thread(() -> {
-                File pidFile = new File(Globals.pidsPath, timestamp + ".tmp");
-                try {
-                    while (!pidFile.exists()) Thread.sleep(50);
-                    Scanner reader = new Scanner(pidFile);
+            ProcessBuilder pb = new ProcessBuilder(winArgs);
+            if (launchReports != null) {
+                // Start-Process passes the environment on to the Wrapper
+                pb.environment().putAll(env);
+                pb.start();
+                return timestamp;
+            }
+            pb.start();
+
+            // A background task reads the PID when written and saves it
+            File pidFile = new File(Globals.pidsPath, timestamp + ".tmp");
+            tasks.repeat(ProcessTasks.NO_PROCESS, "wait-pid " + timestamp, () -> {
+                if (!pidFile.exists()) return true;
+                try (Scanner reader = new Scanner(pidFile)) {
                     long pid = reader.nextLong();
-                    reader.close();
                     pidFile.delete();
 
+                    registry.launched(pid, timestamp);
                     ProcessStruct ps = new ProcessStruct(pid, null);
-                    processes.add(ps);
-
-                    // add pid to properties
-                    properties.setProperty("pids", processes.stream().map(ProcessStruct::getPid).map(p -> Long.toString(p)).collect(Collectors.joining(",")));
-                    saveProps();
-                    createOutputThread(name, ps, stdoutFile, stderrFile, timestamp);
-                } catch (InterruptedException | IOException e) {
+                    if (addProcess(ps)) createOutputThread(name, ps, stdoutFile);
+                } catch (IOException e) {
                     e.printStackTrace();
                 }
-            });
-            pidThread.start();
+                return false;
+            }, 0, PID_POLL_FREQ);
         }
         else {
             /* Unix operation is much simpler. The 'nohup' command allows for the desired behavior out-of-the-box. */
+            if (launchReports != null) {
+                command.add(0, "nohup");
+                ProcessBuilder pb = new ProcessBuilder(command)
+                        .redirectOutput(stdoutFile)
+                        .redirectError(stderrFile);
+                pb.environment().putAll(env);
+                pb.start();
+                return timestamp;
+            }
             List<String> unixArgs = arguments.stream().map(arg -> arg.replaceAll("\"", "")).collect(Collectors.toList());
             unixArgs.addAll(0, List.of("nohup", "java", "-jar", Globals.jarPath));
             long pid = new ProcessBuilder(unixArgs)
                     .redirectOutput(stdoutFile)
                     .redirectError(stderrFile).start().pid();
+            registry.launched(pid, timestamp);
             ProcessStruct ps = new ProcessStruct(pid, null);
-            processes.add(ps);
+            if (addProcess(ps)) createOutputThread(name, ps, stdoutFile);
+        }
+
+        RefreshScheduler.getInstance().markDirty();
+        return timestamp;
+    }
+
+    private LaunchReports.Handler launchHandler(String name, long timestamp, File stdoutFile) {
+        // Called on the launch-reports thread, in the order the Wrapper sent its reports
+        return new LaunchReports.Handler() {
+            private ProcessStruct ps = null;
+            private boolean outputResolved = false;
+            private boolean exited = false;
+
+            @Override
+            public void onPid(long pid) {
+                launchStats.recordPid(System.currentTimeMillis() - timestamp);
+                registry.launched(pid, timestamp);
+                registry.reporting(pid);
+                // a run in a pooled worker reports its launch timestamp as its PID
+                Long worker = WorkerPool.getInstance().takeWorker(timestamp);
+                if (worker != null) registry.worker(pid, worker);
+                ps = new ProcessStruct(pid, null, true);
+                if (PIPE_LOGS) ps.streamLogs();
+                // the run's later reports are dropped if another struct already tracks its PID
+                if (!addProcess(ps)) ps = null;
+            }
+
+            @Override
+            public void onOutput(long millisFromStart, String firstLine) {
+                launchStats.recordOutput(millisFromStart);
+                if (ps == null || outputResolved) return;
+                outputResolved = true;
+                resolveOutput(name, ps, firstLine);
+            }
+
+            @Override
+            public void onLine(boolean stderr, long offset, String line) {
+                if (ps != null) ps.onStreamedLine(stderr, line, offset);
+            }
+
+            @Override
+            public void onUnstreamed() {
+                if (ps != null) ps.streamLost();
+            }
+
+            @Override
+            public void onExit(ExitReport report) {
+                if (ps == null) return;
+                exited = true;
+                ps.reportExit(report);
+                if (outputResolved) return;
+                // exited without writing a line, so no output directory was ever created
+                outputResolved = true;
+                resolveOutput(name, ps, null);
+            }
+
+            @Override
+            public void onClosed() {
+                // The Wrapper died before reporting an exit; its run is followed through the log files from here on
+                if (ps == null || exited) return;
+                ps.streamLost();
+                if (outputResolved) return;
+                outputResolved = true;
+                createOutputThread(name, ps, stdoutFile);
+            }
+        };
+    }
+
+    private void launchSupervised(long timestamp, List<String> command, Map<String, String> env, File stdoutFile, File stderrFile) throws IOException {
+        // The supervisor exits when idle, so a failed request is retried once against a freshly started one
+        for (int attempt = 0; ; attempt++) {
+            SupervisorClient client = getSupervisor();
+            if (client == null) throw new IOException("Supervisor unavailable");
+            try {
+                long pid = client.launch(timestamp, new File(System.getProperty("user.dir")), stdoutFile, stderrFile, env, command);
+                Map<Long, SupervisorClient.RunInfo> runs = new HashMap<>(supervisedRuns);
+                runs.put(timestamp, new SupervisorClient.RunInfo(pid, timestamp, null));
+                supervisedRuns = runs;
+                return;
+            } catch (IOException e) {
+                dropSupervisor(client);
+                if (attempt > 0) throw e;
+            }
+        }
+    }
 
-            // add pid to properties
-            properties.setProperty("pids", processes.stream().map(ProcessStruct::getPid).map(p -> Long.toString(p)).collect(Collectors.joining(",")));
-            saveProps();
-            createOutputThread(name, ps, stdoutFile, stderrFile, timestamp);
+    private synchronized SupervisorClient getSupervisor() {
+        if (USE_SUPERVISOR && supervisor == null) {
+            supervisor = SupervisorClient.connectOrSpawn(new File(Globals.supervisorPath), new File(logDir, "supervisor.log"));
         }
+        return supervisor;
+    }
+
+    private synchronized void dropSupervisor(SupervisorClient client) {
+        client.close();
+        if (supervisor == client) supervisor = null;
+    }
 
-        ProcessGUI.getInstance().updateGUI();
+    List<String> getSupervisedTail(long timestamp, boolean stderr, int n) {
+        // Returns the supervisor's in-memory tail of a run it owns, or null if the logs must be read from disk
+        SupervisorClient client;
+        synchronized (this) {
+            client = supervisor;
+        }
+        SupervisorClient.RunInfo run = supervisedRuns.get(timestamp);
+        if (client == null || run == null) return null;
+        try {
+            return client.tail(run.getPid(), stderr, n);
+        } catch (IOException e) {
+            return null;
+        }
     }
 
-    private void createOutputThread(String name, ProcessStruct ps, File stdoutFile, File stderrFile, long timestamp) {
-        // Reader thread gets first output line to determine output folder
-        Thread t = new Thread(() -> {
+    private void createOutputThread(String name, ProcessStruct ps, File stdoutFile) {
+        // Without a launch handshake, a background task polls for the first output line to determine output folder
+        // There is no deadline: a slow JVM start is not a failed one, and a run that exits silently is caught by its status
+        tasks.repeat(ps.getPid(), "output-dir", () -> {
             try {
-                // This thread waits for the first line of input so it can read the output directory
-                String firstLine = waitForFirstLine(stdoutFile, FIRST_LINE_TIMEOUT, ps);
-
-                // If nothing is output, the process likely errored out
-                boolean immediateError = firstLine == null;
-                properties.setProperty(String.format("%d.timestamp", ps.getPid()), String.valueOf(timestamp));
-
-                if (!immediateError) {
-                    Pattern datetimePattern = Pattern.compile("Writing output to: (?<timestamp>[^\\s]+)");
-                    Matcher m = datetimePattern.matcher(firstLine);
-                    if (!m.find()) return;
-                    String outDir = m.group("timestamp");
-                    properties.setProperty(String.format("%d.directory", ps.getPid()), outDir);
-                    if (!name.equals("")) properties.setProperty(String.format("%d.name", ps.getPid()), name);
-                    saveProps();
-                } else System.err.println("Error: directory not found!");
-                ps.retrieveFiles();
+                String firstLine = readFirstLine(stdoutFile);
+                if (firstLine == null && ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) return true;
+                resolveOutput(name, ps, firstLine);
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        });
-        t.setDaemon(true);
-        t.start();
+            return false;
+        }, 0, FIRST_LINE_POLL_FREQ);
+    }
+
+    private void resolveOutput(String name, ProcessStruct ps, String firstLine) {
+        // If nothing is output, the process likely errored out
+        boolean immediateError = firstLine == null;
+
+        if (!immediateError) {
+            Pattern datetimePattern = Pattern.compile("Writing output to: (?<timestamp>[^\\s]+)");
+            Matcher m = datetimePattern.matcher(firstLine);
+            if (!m.find()) return;
+            String outDir = m.group("timestamp");
+            registry.directoryResolved(ps.getPid(), outDir);
+            if (!name.equals("")) registry.named(ps.getPid(), name);
+        } else System.err.println("Error: directory not found!");
+        ps.retrieveFiles();
     }
 
-    private void readProps() throws IOException {
-        try (FileInputStream fi = new FileInputStream(processInfoFile)) {
-            properties.load(fi);
+    private String readFirstLine(File file) throws IOException {
+        // returns the first line of a file, or null if no complete line has been written yet
+        if (!file.exists() || file.length() == 0) return null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            return reader.readLine();
         }
     }
 
-    private void saveProps() throws IOException {
-        try (FileOutputStream fo = new FileOutputStream(processInfoFile)) {
-            properties.store(fo, "Properties");
+    public void dismissProcess(ProcessStruct ps) throws IOException {
+        dismissProcesses(Collections.singletonList(ps));
+    }
+
+    public void dismissProcesses(Collection<ProcessStruct> toDismiss) {
+        // Removes processes from the monitor by removing them from memory and deleting all process information, including log files
+        // The registry is updated with a single record; log files are deleted in the background
+        List<ProcessStruct> removed = untrack(toDismiss);
+        if (removed.isEmpty()) return;
+        removed.forEach(this::runEnded);
+        if (removed.size() == 1) registry.dismissed(removed.get(0).getPid());
+        else registry.dismissed(removed.stream().map(ProcessStruct::getPid).collect(Collectors.toList()));
+        tasks.submit(ProcessTasks.NO_PROCESS, "delete-logs", () -> {
+            removed.forEach(ProcessStruct::deleteFiles);
+            SupervisorClient client;
+            synchronized (this) {
+                client = supervisor;
+            }
+            if (client == null) return;
+            try {
+                client.forget(removed.stream().map(ps -> supervisedRuns.get(ps.getStartTime().getTime())).filter(Objects::nonNull).map(SupervisorClient.RunInfo::getPid).collect(Collectors.toList()));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private List<ProcessStruct> untrack(Collection<ProcessStruct> toRemove) {
+        // Stops monitoring processes in this instance, leaving the registry and log files untouched
+        List<ProcessStruct> removed = new ArrayList<>();
+        for (ProcessStruct ps : toRemove) {
+            if (processes.remove(ps.getPid(), ps)) removed.add(ps);
+        }
+        if (removed.isEmpty()) return removed;
+        version.incrementAndGet();
+        for (ProcessStruct ps : removed) {
+            tasks.cancel(ps.getPid());
+            // frames are Swing components, so closing them must happen on the EDT
+            if (SwingUtilities.isEventDispatchThread()) ProcessSubframe.closeProcessFrame(ps);
+            else SwingUtilities.invokeLater(() -> ProcessSubframe.closeProcessFrame(ps));
+            ps.detach();
         }
+        RefreshScheduler.getInstance().markDirty();
+        return removed;
     }
 
-    public String waitForFirstLine(File file, long timeoutMillis, ProcessStruct ps) throws Exception {
-        // blocks the current Thread until a line is present in the file, which is returned
-        long start = System.currentTimeMillis();
-        while (System.currentTimeMillis() - start < timeoutMillis && ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) {
-            if (file.exists() && file.length() > 0) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line = reader.readLine();
-                    if (line != null) return line;
-                }
+    public void addRunEndListener(RunEndListener listener) {
+        runEndListeners.add(listener);
+    }
+
+    void runEnded(ProcessStruct ps) {
+        runEndListeners.forEach(listener -> listener.onRunEnded(ps));
+    }
+
+    public LaunchStats getLaunchStats() {
+        return launchStats;
+    }
+
+    public ProcessTasks getTasks() {
+        return tasks;
+    }
+
+    public ProcessRegistry getRegistry() {
+        return registry;
+    }
+
+    boolean addProcess(ProcessStruct ps) {
+        // A PID is only ever tracked by one ProcessStruct; the first to register a launch wins, and a later launch under
+        // a PID the OS has reused replaces the old run still listed under it, whose registry record it has replaced
+        // The winner's tasks are started here; a struct that loses is detached and should be dropped by the caller
+        while (true) {
+            ProcessStruct old = processes.putIfAbsent(ps.getPid(), ps);
+            if (old == null) break;
+            if (ps.getStartTime().getTime() <= old.getStartTime().getTime()) {
+                ps.detach();
+                return false;
+            }
+            if (processes.replace(ps.getPid(), old, ps)) {
+                // tasks are keyed by PID and now belong to the new run, so only the old run's frame and readers go
+                SwingUtilities.invokeLater(() -> ProcessSubframe.closeProcessFrame(old));
+                old.detach();
+                break;
             }
-            Thread.sleep(50);
         }
-        return null;
+        ps.start();
+        version.incrementAndGet();
+        RefreshScheduler.getInstance().markDirty();
+        return true;
     }
 
-    public void dismissProcess(ProcessStruct ps) throws IOException {
-        // Removes a process from the monitor by removing it from memory and deleting all process information, including log files
-        getProcesses().remove(ps);
-        ProcessSubframe.closeProcessFrame(ps);
-        properties.setProperty("pids", ProcessManager.getInstance().getProcesses().stream().map(ps2 -> ps2.getPid() + "").collect(Collectors.joining(",")));
-        properties.remove(ps.getPid() + ".timestamp");
-        properties.remove(ps.getPid() + ".directory");
-        properties.remove(ps.getPid() + ".name");
-        saveProps();
-        ps.removeFiles();
+    public ProcessStruct getProcess(long pid) {
+        return processes.get(pid);
     }
 
     public List<ProcessStruct> getProcesses() {
-        return processes;
+        // Returns an immutable snapshot without locking; it is rebuilt at most once per change, by whichever reader first needs it
+        Snapshot curr = snapshot.get();
+        long v = version.get();
+        if (curr.version == v) return curr.processes;
+        Snapshot next = new Snapshot(v, Collections.unmodifiableList(new ArrayList<>(processes.values())));
+        // never replace a newer snapshot with an older one
+        while (curr.version < v && !snapshot.compareAndSet(curr, next)) curr = snapshot.get();
+        return next.processes;
     }
 
     public boolean nameExists(String name) {
-        return processes.stream().map(ProcessStruct::getName).anyMatch(n -> n.equalsIgnoreCase(name));
+        return getProcesses().stream().map(ProcessStruct::getName).anyMatch(n -> n.equalsIgnoreCase(name)) || RunQueue.getInstance().nameExists(name);
     }
 }
\ No newline at end of file
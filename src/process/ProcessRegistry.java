@@ -0,0 +1,469 @@
+package process;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+public class ProcessRegistry {
+    // Journal records accumulated before the registry is compacted into a fresh snapshot
+    public static final int COMPACT_THRESHOLD = 256;
+
+    enum Op {
+        LAUNCHED, REPORTING, WORKER, DIRECTORY, NAMED, EXITED, DISMISSED, DISMISSED_ALL
+    }
+
+    public static class Record {
+        private final long pid;
+        private Long timestamp;
+        private String directory;
+        private String name;
+        private String exitStatus;
+        private boolean reporting;
+        private Long worker;
+
+        Record(long pid) {
+            this.pid = pid;
+        }
+
+        public long getPid() {
+            return pid;
+        }
+
+        public Long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Name of the ProcessStatus a run exited with, or null if it has not been seen to exit
+        public String getExitStatus() {
+            return exitStatus;
+        }
+
+        // Whether the run was launched through the Wrapper handshake, so its exit is reported rather than inferred
+        public boolean isReporting() {
+            return reporting;
+        }
+
+        // PID of the pooled worker JVM running the run, or null if the run has a JVM of its own (its PID is then the run's)
+        public Long getWorker() {
+            return worker;
+        }
+    }
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File lockFile;
+    private final Map<Long, Record> records = new LinkedHashMap<>();
+    private final List<ProcessRegistryListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "registry-compact");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel journal;
+    // Guards the snapshot and journal against other VTR instances; also holds the compaction generation
+    private FileChannel lock;
+    private long generation = 0;
+    // Offset up to which this instance has applied the journal
+    private long readPos = 0;
+    private int journalRecords = 0;
+    private boolean compactQueued = false;
+
+    public ProcessRegistry(File snapshotFile) throws IOException {
+        this.snapshotFile = snapshotFile;
+        String base = snapshotFile.getName().replaceFirst("\\.properties$", "");
+        this.journalFile = new File(snapshotFile.getParentFile(), base + ".journal");
+        this.lockFile = new File(snapshotFile.getParentFile(), base + ".lock");
+        lock = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        locked(false, () -> {
+            reload();
+            if (journal.size() > readPos) {
+                // a crash mid-append leaves an unterminated record; drop it so later appends start on a clean line
+                journal.truncate(readPos);
+            }
+        });
+        if (journalRecords >= COMPACT_THRESHOLD) {
+            compactQueued = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    private void reload() throws IOException {
+        // Full read of snapshot + journal; only needed at startup and after another instance compacts
+        records.clear();
+        generation = readGeneration();
+        loadSnapshot();
+        readPos = 0;
+        journalRecords = 0;
+        catchUp(null);
+    }
+
+    private void loadSnapshot() throws IOException {
+        // The snapshot keeps the original process_ids.properties layout, so existing installs load unchanged
+        if (!snapshotFile.exists()) return;
+        Properties properties = new Properties();
+        try (FileInputStream fi = new FileInputStream(snapshotFile)) {
+            properties.load(fi);
+        }
+        for (String pidStr : properties.getProperty("pids", "").split(",")) {
+            if (pidStr.isEmpty()) continue;
+            long pid;
+            try {
+                pid = Long.parseLong(pidStr);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Record record = records.computeIfAbsent(pid, Record::new);
+            try {
+                record.timestamp = Long.parseLong(properties.getProperty(pid + ".timestamp"));
+            } catch (NumberFormatException ignored) {}
+            record.directory = properties.getProperty(pid + ".directory");
+            record.name = properties.getProperty(pid + ".name");
+            record.exitStatus = properties.getProperty(pid + ".exit");
+            record.reporting = Boolean.parseBoolean(properties.getProperty(pid + ".reporting"));
+            try {
+                record.worker = Long.parseLong(properties.getProperty(pid + ".worker"));
+            } catch (NumberFormatException ignored) {}
+        }
+    }
+
+    private void catchUp(Set<Long> touched) throws IOException {
+        // Applies complete journal records appended since readPos (by any instance); must hold the lock
+        long size = journal.size();
+        if (size <= readPos) return;
+        ByteBuffer buf = ByteBuffer.allocate((int) (size - readPos));
+        try (FileChannel in = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (in.read(buf, readPos + buf.position()) < 0) break;
+            }
+        }
+        byte[] bytes = buf.array();
+        int start = 0;
+        for (int i = 0; i < buf.position(); i++) {
+            if (bytes[i] != '\n') continue;
+            apply(new String(bytes, start, i - start, StandardCharsets.UTF_8), touched);
+            journalRecords++;
+            start = i + 1;
+        }
+        readPos += start;
+    }
+
+    private long readGeneration() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        while (buf.hasRemaining()) {
+            if (lock.read(buf, buf.position()) < 0) return 0;
+        }
+        return buf.getLong(0);
+    }
+
+    private void writeGeneration(long generation) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES).putLong(0, generation);
+        while (buf.hasRemaining()) lock.write(buf, buf.position());
+        lock.force(false);
+    }
+
+    private void sync(Set<Long> touched) throws IOException {
+        // Brings this instance up to date with the files; must hold the lock
+        long newGeneration = readGeneration();
+        if (newGeneration == generation && journal.size() >= readPos) {
+            catchUp(touched);
+            return;
+        }
+        // another instance compacted (or truncated the journal and crashed before bumping the generation),
+        // so read positions in the old journal no longer apply
+        Map<Long, Record> old = new HashMap<>();
+        for (Record record : records.values()) old.put(record.pid, copy(record));
+        reload();
+        if (touched == null) return;
+        old.keySet().stream().filter(pid -> !records.containsKey(pid)).forEach(touched::add);
+        for (Record record : records.values()) {
+            Record before = old.get(record.pid);
+            if (before == null || !Objects.equals(before.timestamp, record.timestamp) || !Objects.equals(before.directory, record.directory)
+                    || !Objects.equals(before.name, record.name) || !Objects.equals(before.exitStatus, record.exitStatus) || before.reporting != record.reporting
+                    || !Objects.equals(before.worker, record.worker)) touched.add(record.pid);
+        }
+    }
+
+    // Work done while holding the lock file
+    private interface Locked {
+        void run() throws IOException;
+    }
+
+    private void locked(boolean shared, Locked action) throws IOException {
+        // Holds the lock file for the duration of action, and releases it however action ends
+        FileLock fileLock = lock.lock(0, Long.MAX_VALUE, shared);
+        try {
+            action.run();
+        } finally {
+            fileLock.release();
+        }
+    }
+
+    public void refresh() {
+        // Picks up records written by other instances; cheap when nothing has changed
+        Set<Long> touched = new LinkedHashSet<>();
+        synchronized (this) {
+            try {
+                if (journal.size() == readPos && readGeneration() == generation) return;
+                locked(true, () -> sync(touched));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        notifyListeners(touched);
+    }
+
+    private void notifyListeners(Set<Long> touched) {
+        // Called without holding the registry lock, so listeners may read or write the registry
+        for (long pid : touched) {
+            boolean removed;
+            synchronized (this) {
+                removed = !records.containsKey(pid);
+            }
+            for (ProcessRegistryListener listener : listeners) {
+                if (removed) listener.onRecordRemoved(pid);
+                else listener.onRecordChanged(pid);
+            }
+        }
+    }
+
+    public void addListener(ProcessRegistryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProcessRegistryListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void apply(String line, Set<Long> touched) {
+        String[] parts = line.split("\t", 3);
+        if (parts.length < 2) return;
+        Op op;
+        long pid;
+        try {
+            op = Op.valueOf(parts[0]);
+            pid = Long.parseLong(parts[1]);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        String value = parts.length > 2 ? unescape(parts[2]) : null;
+        apply(op, pid, value, touched);
+    }
+
+    private void apply(Op op, long pid, String value, Set<Long> touched) {
+        if (op == Op.DISMISSED) {
+            records.remove(pid);
+            if (touched != null) touched.add(pid);
+            return;
+        }
+        if (op == Op.DISMISSED_ALL) {
+            for (String pidStr : value.split(",")) {
+                try {
+                    long dismissed = Long.parseLong(pidStr);
+                    records.remove(dismissed);
+                    if (touched != null) touched.add(dismissed);
+                } catch (NumberFormatException ignored) {}
+            }
+            return;
+        }
+        if (touched != null) touched.add(pid);
+        Record record = records.computeIfAbsent(pid, Record::new);
+        switch (op) {
+            case LAUNCHED:
+                try {
+                    record.timestamp = Long.parseLong(value);
+                } catch (NumberFormatException ignored) {}
+                // a relaunch under a reused PID starts from a clean record
+                record.directory = null;
+                record.name = null;
+                record.exitStatus = null;
+                record.reporting = false;
+                record.worker = null;
+                break;
+            case REPORTING:
+                record.reporting = true;
+                break;
+            case WORKER:
+                try {
+                    record.worker = Long.parseLong(value);
+                } catch (NumberFormatException ignored) {}
+                break;
+            case DIRECTORY:
+                record.directory = value;
+                break;
+            case NAMED:
+                record.name = value;
+                break;
+            case EXITED:
+                record.exitStatus = value;
+                break;
+        }
+    }
+
+    private void append(Op op, long pid, String value) {
+        Set<Long> touched = new LinkedHashSet<>();
+        synchronized (this) {
+            String line = op.name() + "\t" + pid + (value != null ? "\t" + escape(value) : "") + "\n";
+            try {
+                locked(false, () -> {
+                    // records from other instances are applied first, so ours lands on top of the latest state
+                    sync(touched);
+                    if (journal.size() > readPos) journal.truncate(readPos);
+                    ByteBuffer buf = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+                    while (buf.hasRemaining()) journal.write(buf);
+                    journal.force(false);
+                    readPos = journal.size();
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            apply(op, pid, value, null);
+            if (++journalRecords >= COMPACT_THRESHOLD && !compactQueued) {
+                compactQueued = true;
+                compactor.execute(this::compact);
+            }
+        }
+        notifyListeners(touched);
+    }
+
+    public void launched(long pid, long timestamp) {
+        append(Op.LAUNCHED, pid, Long.toString(timestamp));
+    }
+
+    public void reporting(long pid) {
+        append(Op.REPORTING, pid, null);
+    }
+
+    public void worker(long pid, long workerPid) {
+        append(Op.WORKER, pid, Long.toString(workerPid));
+    }
+
+    public void directoryResolved(long pid, String directory) {
+        append(Op.DIRECTORY, pid, directory);
+    }
+
+    public void named(long pid, String name) {
+        append(Op.NAMED, pid, name);
+    }
+
+    public void exited(long pid, String status) {
+        append(Op.EXITED, pid, status);
+    }
+
+    public void dismissed(long pid) {
+        append(Op.DISMISSED, pid, null);
+    }
+
+    public void dismissed(Collection<Long> pids) {
+        // One record for the whole batch, so a crash mid-write drops either all of it or none
+        if (pids.isEmpty()) return;
+        append(Op.DISMISSED_ALL, 0, pids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    public void compact() {
+        // Writes the current state as a snapshot via temp file + atomic rename, then starts a new journal
+        Set<Long> touched = new LinkedHashSet<>();
+        synchronized (this) {
+            compactQueued = false;
+            try {
+                locked(false, () -> {
+                    sync(touched);
+                    Properties properties = new Properties();
+                    properties.setProperty("pids", records.keySet().stream().map(String::valueOf).collect(Collectors.joining(",")));
+                    for (Record record : records.values()) {
+                        if (record.timestamp != null) properties.setProperty(record.pid + ".timestamp", record.timestamp.toString());
+                        if (record.directory != null) properties.setProperty(record.pid + ".directory", record.directory);
+                        if (record.name != null) properties.setProperty(record.pid + ".name", record.name);
+                        if (record.exitStatus != null) properties.setProperty(record.pid + ".exit", record.exitStatus);
+                        if (record.reporting) properties.setProperty(record.pid + ".reporting", "true");
+                        if (record.worker != null) properties.setProperty(record.pid + ".worker", record.worker.toString());
+                    }
+                    File tmp = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+                    try (FileOutputStream fo = new FileOutputStream(tmp)) {
+                        properties.store(fo, "Properties");
+                        fo.getFD().sync();
+                    }
+                    try {
+                        Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    // bump the generation first, so other instances reload instead of reading from a stale offset
+                    // even if we crash before the truncate; replaying records over the new snapshot is idempotent
+                    writeGeneration(++generation);
+                    journal.truncate(0);
+                    journal.force(true);
+                    readPos = 0;
+                    journalRecords = 0;
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        notifyListeners(touched);
+    }
+
+    public synchronized List<Long> getPids() {
+        return new ArrayList<>(records.keySet());
+    }
+
+    // Record of the run launched at timestamp, or null
+    public synchronized Record getByTimestamp(long timestamp) {
+        for (Record record : records.values()) {
+            if (record.timestamp != null && record.timestamp == timestamp) return copy(record);
+        }
+        return null;
+    }
+
+    public synchronized Record get(long pid) {
+        Record record = records.get(pid);
+        // copies so callers never observe a record mid-update
+        return record == null ? null : copy(record);
+    }
+
+    private static Record copy(Record record) {
+        Record copy = new Record(record.pid);
+        copy.timestamp = record.timestamp;
+        copy.directory = record.directory;
+        copy.name = record.name;
+        copy.exitStatus = record.exitStatus;
+        copy.reporting = record.reporting;
+        copy.worker = record.worker;
+        return copy;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,7 @@
+package process;
+
+// Notified of registry changes made by other VTR instances sharing the same install
+public interface ProcessRegistryListener {
+    void onRecordChanged(long pid);
+    void onRecordRemoved(long pid);
+}
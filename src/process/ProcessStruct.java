@@ -6,12 +6,15 @@ import java.io.*;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class ProcessStruct {
 
-    enum ProcessStatus {
-        ALIVE("Processing"), FINISHED("Run completed"), RUNTIME_ERROR("Run terminated early"), INIT_ERROR("Process failed to start");
+    public enum ProcessStatus {
+        ALIVE("Processing"), QUEUED("Queued"), FINISHED("Run completed"), RUNTIME_ERROR("Run terminated early"), INIT_ERROR("Process failed to start");
 
         private final String statusText;
 
@@ -19,167 +22,435 @@ public class ProcessStruct {
             this.statusText = statusText;
         }
 
+        // A finished run may still be found to have ended early (stderr output or a truncated log),
+        // and a run whose output directory never appears is an INIT_ERROR; no status leads back to ALIVE
+        // QUEUED is only shown for runs waiting in the RunQueue, which have no ProcessStruct yet
+        boolean canTransitionTo(ProcessStatus next) {
+            switch (this) {
+                case ALIVE:
+                    return next != ALIVE && next != QUEUED;
+                case FINISHED:
+                    return next == RUNTIME_ERROR || next == INIT_ERROR;
+                case RUNTIME_ERROR:
+                    return next == INIT_ERROR;
+                default:
+                    return false;
+            }
+        }
+
         @Override
         public String toString() {
             return statusText;
         }
     }
 
+    // Lines read from the end of a finished run's logs before its full logs are loaded
+    public static final int PREVIEW_LINES = 50;
+    // How often a running process is checked for exit, and its output folder for config.txt
+    public static final int EXIT_POLL_FREQ = 500;
+    public static final int CONFIG_POLL_FREQ = 1000;
+    // How long a reporting run's exit report may lag behind the process itself before its status is inferred instead
+    public static final int EXIT_REPORT_GRACE = 3000;
+    // How often a reporting run whose status board slot is not found yet looks for it again
+    public static final int BOARD_LOOKUP_FREQ = 1000;
+
     private long startTime = -1;
+    private String finalExecTime = null;
+    private String startStr = null;
+    private long startStrTimestamp;
 
-    private final List<ProcessLogListener> logListeners = new ArrayList<>();
-    private final List<ProcessExitListener> exitListeners = new ArrayList<>();
+    private final List<ProcessLogListener> logListeners = new CopyOnWriteArrayList<>();
+    private final List<ProcessLogBatchListener> batchLogListeners = new CopyOnWriteArrayList<>();
+    private final List<ProcessExitListener> exitListeners = new CopyOnWriteArrayList<>();
 
     private final ProcessHandle handle;
     private final long pid;
+    // OS process running the run: its own JVM, or for a run in a pooled worker (whose pid is its launch timestamp), the worker
+    private final long osPid;
+    private final boolean pooled;
     private File stdoutFile;
     private File stderrFile;
-    private File outputDir = null;
-    private long timestamp;
-
-    private final List<String> stdoutLog = new ArrayList<>();
-    private final List<String> stderrLog = new ArrayList<>();
-    private final Map<String, Object> configMap = new LinkedHashMap<>();
-    private final Map<String, Integer> molCounts = new LinkedHashMap<>();
-
-    private ProcessStatus status;
-    private String name;
+    private volatile File outputDir = null;
+    private volatile long timestamp;
+    private LogLineReader stdoutReader;
+    private LogLineReader stderrReader;
+
+    private volatile LogStore stdoutLog;
+    private volatile LogStore stderrLog;
+    private volatile boolean logsLoaded = true;
+    // Set once retrieveFiles has run; streamed lines that arrive earlier are held until then
+    private boolean filesRetrieved = false;
+    private boolean exitRecorded = false;
+    private final AtomicBoolean endReported = new AtomicBoolean(false);
+    private volatile List<String> stdoutTail = Collections.emptyList();
+    private volatile List<String> stderrTail = Collections.emptyList();
+    // Published whole once the config file is parsed, so readers never see a partly-filled map
+    private volatile Map<String, Object> configMap = Collections.emptyMap();
+    private volatile Map<String, Integer> molCounts = Collections.emptyMap();
+
+    private final AtomicReference<ProcessStatus> status = new AtomicReference<>();
+    private final AtomicBoolean exitHandled = new AtomicBoolean(false);
+    private volatile String name;
+    // Set for runs started through the Wrapper handshake, whose exit code is reported rather than inferred from logs
+    private volatile boolean reporting;
+    private volatile ExitReport exitReport = null;
+    private volatile int boardSlot = -1;
+    // Set while log lines are streamed from the Wrapper rather than tailed from the log files
+    private volatile boolean streamed = false;
+    private final List<StreamedLine> pendingLines = new ArrayList<>();
+    private long lastStdoutOffset = -1;
+    private long lastStderrOffset = -1;
+    private boolean skipStdout = false;
+    private boolean skipStderr = false;
+    private volatile long boardLookup = 0;
+
+    private static class StreamedLine {
+        final boolean stderr;
+        final String line;
+        final long offset;
+
+        StreamedLine(boolean stderr, String line, long offset) {
+            this.stderr = stderr;
+            this.line = line;
+            this.offset = offset;
+        }
+    }
 
     public ProcessStruct(long pid, List<Long> transrotPIDs) {
+        this(pid, transrotPIDs, false);
+    }
+
+    public ProcessStruct(long pid, List<Long> transrotPIDs, boolean reporting) {
         this.pid = pid;
-        Optional<ProcessHandle> optHandle = ProcessHandle.of(pid);
+        this.reporting = reporting;
+        ProcessRegistry.Record record = ProcessManager.getInstance().getRegistry().get(pid);
+        if (record != null && record.getTimestamp() != null) timestamp = record.getTimestamp();
+        // the log stores exist from the start, so a Process View opened before the first output line is bound to them
+        if (timestamp != 0) createLogStores();
+        pooled = record != null && record.getWorker() != null;
+        osPid = pooled ? record.getWorker() : pid;
+        Optional<ProcessHandle> optHandle = ProcessHandle.of(osPid);
 
         // Only creates a local handle for a process if it is running TransRot.jar
         if (optHandle.isEmpty() || !(transrotPIDs == null || transrotPIDs.contains(pid))) {
             this.handle = null;
-            status = ProcessStatus.FINISHED;
+            status.set(ProcessStatus.FINISHED);
             exitListeners.forEach(ProcessExitListener::onExit);
         }
         else {
-            status = ProcessStatus.ALIVE;
+            status.set(ProcessStatus.ALIVE);
             this.handle = optHandle.get();
+        }
+    }
+
+    void start() {
+        // Starts watching a live run for its exit; called once the run is tracked, so a struct that lost the race to
+        // track its PID never schedules tasks under it
+        if (handle == null) return;
+        // Polled rather than joined on onExit(), which would hold a thread per process for its whole lifetime
+        long[] exitSeen = {-1};
+        ProcessManager.getInstance().getTasks().repeat(pid, "exit-watch", () -> {
+            // the status board answers without asking the OS, as long as the run's Wrapper keeps it fresh
+            StatusBoard board = StatusBoard.getInstance();
+            int slot = getBoardSlot();
+            if (slot >= 0 && board.isFresh(slot)) {
+                if (board.getPhase(slot) != StatusBoard.PHASE_EXITED) return true;
+            }
+            else if (this.handle.isAlive()) {
+                // a worker outlives its runs, so a pooled run is over once its exit file is written
+                if (!pooled) return true;
+                if (exitReport == null) exitReport = readExitFile();
+                if (exitReport == null) return true;
+            }
+            if (exitReport == null) exitReport = readExitFile();
+            if (exitReport == null && this.reporting) {
+                // the Wrapper reports just after the run exits; it is only given up on if it has died too
+                if (exitSeen[0] == -1) exitSeen[0] = System.currentTimeMillis();
+                if (System.currentTimeMillis() - exitSeen[0] < EXIT_REPORT_GRACE) return true;
+            }
+            onExit();
+            return false;
+        }, EXIT_POLL_FREQ, EXIT_POLL_FREQ);
+    }
+
+    void reportExit(ExitReport report) {
+        // Called once the Wrapper has seen the run exit, after it has sent every streamed line
+        exitReport = report;
+        if (handle != null) onExit();
+        finishStream();
+    }
+
+    void streamLogs() {
+        streamed = true;
+    }
+
+    synchronized void onStreamedLine(boolean stderr, String line, long offset) {
+        // Lines that arrive before retrieveFiles has run are held until then
+        if (!streamed) return;
+        if (!filesRetrieved) pendingLines.add(new StreamedLine(stderr, line, offset));
+        else if (stderr) onStderr(line, offset);
+        else onStdout(line, offset);
+    }
+
+    private synchronized void finishStream() {
+        if (!streamed || !filesRetrieved) return;
+        streamed = false;
+        closeReaders();
+        recordExit();
+    }
+
+    synchronized void streamLost() {
+        // Falls back to tailing the log files, resuming after the last line that was streamed
+        if (!streamed) return;
+        streamed = false;
+        if (!filesRetrieved) {
+            // retrieveFiles has not run yet, and will read the logs from the start
+            pendingLines.clear();
+            return;
+        }
+        stdoutReader = new LogLineReader(stdoutFile);
+        stderrReader = new LogLineReader(stderrFile);
+        if (lastStdoutOffset >= 0) {
+            stdoutReader.seek(lastStdoutOffset);
+            skipStdout = true;
+        }
+        if (lastStderrOffset >= 0) {
+            stderrReader.seek(lastStderrOffset);
+            skipStderr = true;
+        }
+        createReadThreads();
+    }
+
+    private int getBoardSlot() {
+        // Finds this run's slot on the status board, or -1; only runs launched through the handshake have one
+        StatusBoard board = StatusBoard.getInstance();
+        int slot = boardSlot;
+        if (board.holds(slot, timestamp)) return slot;
+        long now = System.currentTimeMillis();
+        if (!reporting || timestamp == 0 || now - boardLookup < BOARD_LOOKUP_FREQ) return -1;
+        boardLookup = now;
+        boardSlot = board.find(timestamp);
+        return boardSlot;
+    }
+
+    private Duration getCpuDuration() {
+        // Only ever reads cached values: the status board where the run has a slot, else the resource sampler's
+        StatusBoard board = StatusBoard.getInstance();
+        int slot = getBoardSlot();
+        if (slot >= 0 && board.isFresh(slot)) return Duration.ofNanos(board.getCpuNanos(slot));
+        ResourceHistory history = getResourceHistory();
+        ResourceHistory.Sample latest = history == null ? null : history.getLatest();
+        return latest == null ? null : Duration.ofMillis(latest.getCpuMillis());
+    }
+
+    private ExitReport readExitFile() {
+        return timestamp == 0 ? null : ExitReport.read(new File(Globals.pidsPath, timestamp + ".exit"));
+    }
 
-            // Lifetime thread to set the status of a process as it terminates
-            Thread finishThread = new Thread(() -> {
-                this.handle.onExit().join();
-                if (outputDir == null) status = ProcessStatus.INIT_ERROR;
-                else if (!stderrLog.isEmpty()) status = ProcessStatus.RUNTIME_ERROR;
-                else if (status == ProcessStatus.ALIVE) status = ProcessStatus.FINISHED;
-                exitListeners.forEach(ProcessExitListener::onExit);
-            });
-            finishThread.setDaemon(true);
-            finishThread.start();
+    private void onExit() {
+        // Sets the status of a process once it terminates
+        if (!exitHandled.compareAndSet(false, true)) return;
+        ExitReport report = exitReport;
+        if (outputDir == null) setStatus(ProcessStatus.INIT_ERROR);
+        else if (report != null) {
+            // the exit code is exact, so no log heuristics are needed
+            if (report.getCode() != 0) setStatus(ProcessStatus.RUNTIME_ERROR);
+            else setStatus(ProcessStatus.ALIVE, ProcessStatus.FINISHED);
         }
+        else if (stderrLog != null && !stderrLog.isEmpty()) setStatus(ProcessStatus.RUNTIME_ERROR);
+        else setStatus(ProcessStatus.ALIVE, ProcessStatus.FINISHED);
+        if (stdoutFile != null) LogTailService.getInstance().wake(this);
+        exitListeners.forEach(ProcessExitListener::onExit);
     }
 
     public void retrieveFiles() {
-        // Pulls file information from the Properties object and starts threads to loads logs and config
-        try {
-            timestamp = Long.parseLong(ProcessManager.properties.getProperty(String.format("%d.timestamp", pid)));
-            String newName = ProcessManager.properties.getProperty(String.format("%d.name", pid));
-            if (newName != null) name = newName;
-            else name = String.format("Process %d", pid);
-
-            stdoutFile = new File(ProcessManager.logDir, String.format("stdout_%d.log", timestamp));
-            stderrFile = new File(ProcessManager.logDir, String.format("stderr_%d.log", timestamp));
-
-            String directoryPath = ProcessManager.properties.getProperty(String.format("%d.directory", pid));
-            if (directoryPath != null) {
-                outputDir = new File(directoryPath);
-                createReadThreads();
-                loadConfigMap();
+        // Pulls file information from the process registry and starts tasks to load logs and config
+        ProcessRegistry.Record record = ProcessManager.getInstance().getRegistry().get(pid);
+        if (record == null || record.getTimestamp() == null) {
+            setStatus(ProcessStatus.INIT_ERROR);
+            return;
+        }
+        timestamp = record.getTimestamp();
+        exitRecorded = record.getExitStatus() != null;
+        if (record.isReporting()) reporting = true;
+        String newName = record.getName();
+        if (newName != null) name = newName;
+        else name = String.format("Process %d", pid);
+
+        boolean streaming;
+        synchronized (this) {
+            if (stdoutLog == null) createLogStores();
+            filesRetrieved = true;
+            streaming = streamed;
+            for (StreamedLine pending : pendingLines) onStreamedLine(pending.stderr, pending.line, pending.offset);
+            pendingLines.clear();
+        }
+
+        String directoryPath = record.getDirectory();
+        if (directoryPath != null) {
+            outputDir = new File(directoryPath);
+            if (streaming) {
+                // lines keep arriving from the Wrapper
+                if (status.get() != ProcessStatus.ALIVE) finishStream();
             }
-            else status = ProcessStatus.INIT_ERROR;
-        } catch (NumberFormatException ignored) {
-            status = ProcessStatus.INIT_ERROR;
+            else if (status.get() == ProcessStatus.ALIVE) createReadThreads();
+            else readTails();
+            loadConfigMap();
         }
+        else setStatus(ProcessStatus.INIT_ERROR);
     }
 
-    private void createReadThreads() {
-        // Creates threads to read each output file
+    private synchronized void createLogStores() {
+        stdoutFile = new File(ProcessManager.logDir, String.format("stdout_%d.log", timestamp));
+        stderrFile = new File(ProcessManager.logDir, String.format("stderr_%d.log", timestamp));
+        stdoutLog = new LogStore(stdoutFile);
+        stderrLog = new LogStore(stderrFile);
+    }
 
-        // stdout
-        Thread outThread = new Thread(() -> {
+    private void readTails() {
+        // Finished runs only need their last lines at startup; full logs are indexed when first viewed
+        logsLoaded = false;
+        List<String> supervisedOut = ProcessManager.getInstance().getSupervisedTail(timestamp, false, PREVIEW_LINES);
+        List<String> supervisedErr = supervisedOut == null ? null : ProcessManager.getInstance().getSupervisedTail(timestamp, true, PREVIEW_LINES);
+        if (supervisedOut != null && supervisedErr != null) {
+            // the supervisor already holds the tails in memory
+            stdoutTail = supervisedOut;
+            stderrTail = supervisedErr;
+        } else {
             try {
-                readStdout();
-            } catch (InterruptedException e) {
+                stdoutTail = LogStore.readTail(stdoutFile, PREVIEW_LINES);
+                stderrTail = LogStore.readTail(stderrFile, PREVIEW_LINES);
+            } catch (IOException e) {
                 e.printStackTrace();
             }
-        });
-        outThread.setDaemon(true);
-        outThread.start();
+        }
+        if (exitReport == null) exitReport = readExitFile();
+        if (exitReport != null) {
+            if (exitReport.getCode() != 0) setStatus(ProcessStatus.RUNTIME_ERROR);
+        } else {
+            if (!stderrTail.isEmpty()) setStatus(ProcessStatus.RUNTIME_ERROR);
+            if (!stdoutTail.isEmpty() && !stdoutTail.get(stdoutTail.size() - 1).startsWith("Annealing done in ")) setStatus(ProcessStatus.FINISHED, ProcessStatus.RUNTIME_ERROR);
+        }
+        recordExit();
+    }
 
-        // stderr
-        Thread errThread = new Thread(() -> {
-            try {
-                readStderr();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        });
-        errThread.setDaemon(true);
-        errThread.start();
-    }
-
-    private void readStdout() throws InterruptedException {
-        // The use of a RandomAccessFile allows for reliable live logs
-        long lastPos = 0;
-        try (RandomAccessFile in = new RandomAccessFile(stdoutFile, "r")) {
-            while (true) {
-                if (in.length() > lastPos) {
-                    in.seek(lastPos);
-                    String line;
-                    while ((line = in.readLine()) != null) {
-                        stdoutLog.add(line);
-                        for (ProcessLogListener logListener : logListeners) {
-                            logListener.onStdout(line);
-                        }
-                    }
-                    lastPos = in.getFilePointer();
-                }
-                if (status != ProcessStatus.ALIVE) break;
-                Thread.sleep(50);
-            }
-            if (stdoutLog.size() > 0 && !stdoutLog.get(stdoutLog.size() - 1).startsWith("Annealing done in ") && status == ProcessStatus.FINISHED) status = ProcessStatus.RUNTIME_ERROR;
+    public synchronized void loadLogs() {
+        // Reads and indexes the full logs of a finished run; called off the EDT when its logs are opened
+        if (logsLoaded) return;
+        try (LogLineReader outReader = new LogLineReader(stdoutFile); LogLineReader errReader = new LogLineReader(stderrFile)) {
+            outReader.read(stdoutLog::add);
+            errReader.read(stderrLog::add);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        logsLoaded = true;
     }
 
-    private void readStderr() throws InterruptedException {
-        // The use of a RandomAccessFile allows for reliable live logs
-        long lastPos = 0;
-        try (RandomAccessFile in = new RandomAccessFile(stderrFile, "r")) {
-            while (true) {
-                if (in.length() > lastPos) {
-                    in.seek(lastPos);
-                    String line;
-                    while ((line = in.readLine()) != null) {
-                        if (outputDir == null) status = ProcessStatus.INIT_ERROR;
-                        else status = ProcessStatus.RUNTIME_ERROR;
-                        stderrLog.add(line);
-                        for (ProcessLogListener logListener : logListeners) {
-                            logListener.onStderr(line);
-                        }
-                    }
-                    lastPos = in.getFilePointer();
-                }
-                if (status != ProcessStatus.ALIVE) return;
-                Thread.sleep(50);
-            }
+    public boolean isLogsLoaded() {
+        return logsLoaded;
+    }
+
+    private void createReadThreads() {
+        // Output files are read by the shared tail service rather than by per-process threads
+        LogTailService.getInstance().register(this);
+    }
+
+    boolean readLogs() throws IOException {
+        // Reads any new output; returns false once the process has exited and its logs are fully read
+        boolean alive = status.get() == ProcessStatus.ALIVE;
+        readStdout();
+        readStderr();
+        if (alive) return true;
+        closeReaders();
+        if (exitReport == null && stdoutLog.size() > 0 && !stdoutLog.getLast().startsWith("Annealing done in ")) setStatus(ProcessStatus.FINISHED, ProcessStatus.RUNTIME_ERROR);
+        recordExit();
+        return false;
+    }
+
+    private void recordExit() {
+        // Journals the final status once, so later startups can skip liveness checks for this run, and reports it
+        if (!endReported.compareAndSet(false, true)) return;
+        if (!exitRecorded) {
+            exitRecorded = true;
+            ProcessManager.getInstance().getRegistry().exited(pid, status.get().name());
+        }
+        ProcessManager.getInstance().runEnded(this);
+    }
+
+    private void readStdout() throws IOException {
+        if (stdoutReader == null) stdoutReader = new LogLineReader(stdoutFile);
+        stdoutReader.read((line, offset) -> {
+            // the first line after a fall back from streaming was already delivered
+            if (skipStdout) skipStdout = false;
+            else onStdout(line, offset);
+        });
+    }
+
+    private void readStderr() throws IOException {
+        if (stderrReader == null) stderrReader = new LogLineReader(stderrFile);
+        stderrReader.read((line, offset) -> {
+            if (skipStderr) skipStderr = false;
+            else onStderr(line, offset);
+        });
+    }
+
+    private void onStdout(String line, long offset) {
+        lastStdoutOffset = offset;
+        stdoutLog.add(line, offset);
+        for (ProcessLogListener logListener : logListeners) {
+            logListener.onStdout(line);
+        }
+        if (!batchLogListeners.isEmpty()) EdtLogBridge.getInstance().enqueue(this, false, line);
+    }
+
+    private void onStderr(String line, long offset) {
+        lastStderrOffset = offset;
+        // reporting runs get their status from the exit code instead
+        if (!reporting) {
+            if (outputDir == null) setStatus(ProcessStatus.INIT_ERROR);
+            else setStatus(ProcessStatus.RUNTIME_ERROR);
+        }
+        stderrLog.add(line, offset);
+        for (ProcessLogListener logListener : logListeners) {
+            logListener.onStderr(line);
+        }
+        if (!batchLogListeners.isEmpty()) EdtLogBridge.getInstance().enqueue(this, true, line);
+    }
+
+    private void closeReaders() {
+        try {
+            if (stdoutReader != null) stdoutReader.close();
+            if (stderrReader != null) stderrReader.close();
+            if (stdoutLog != null) stdoutLog.close();
+            if (stderrLog != null) stderrLog.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private boolean setStatus(ProcessStatus newStatus) {
+        // Moves to newStatus if the state machine allows it from whatever the current status is
+        while (true) {
+            ProcessStatus curr = status.get();
+            if (curr == newStatus || !curr.canTransitionTo(newStatus)) return false;
+            if (setStatus(curr, newStatus)) return true;
+        }
+    }
+
+    boolean setStatus(ProcessStatus expected, ProcessStatus newStatus) {
+        // Moves to newStatus only if the status is still expected
+        if (!expected.canTransitionTo(newStatus) || !status.compareAndSet(expected, newStatus)) return false;
+        RefreshScheduler.getInstance().markDirty();
+        return true;
+    }
+
     public ProcessStatus getStatus() {
-        return status;
+        return status.get();
     }
 
     public boolean destroyIfAlive() {
-        // Kills a process if it is alive
-        if (status == ProcessStatus.ALIVE) {
-            status = ProcessStatus.RUNTIME_ERROR;
+        // Kills a process if it is alive; only the caller that wins the ALIVE transition destroys it
+        if (setStatus(ProcessStatus.ALIVE, ProcessStatus.RUNTIME_ERROR)) {
             // Before killing the process, its timestamp is written to the expected elapsed_time.log file for consistency in reading in processes
             try (FileWriter writer = new FileWriter(new File(outputDir, "elapsed_time.log"))) {
                 long execTime = getExecTimeLive();
@@ -194,9 +465,7 @@ public class ProcessStruct {
 
     private long getExecTimeLive() {
         if (startTime == -1) startTime = System.currentTimeMillis();
-        Duration dur = handle != null ?
-                handle.info().totalCpuDuration().orElse(null) :
-                null;
+        Duration dur = getCpuDuration();
         if (dur == null) {
             // fallback to crude calculation of exec time
             long currTime = System.currentTimeMillis();
@@ -206,16 +475,20 @@ public class ProcessStruct {
     }
 
     public String getExecTime() {
+        // Exited processes no longer change, so their exec time is only looked up once
+        ProcessStatus currStatus = status.get();
+        if (currStatus != ProcessStatus.ALIVE && finalExecTime != null) return finalExecTime;
         if (startTime == -1) startTime = System.currentTimeMillis();
         String ret;
-        Duration dur = handle != null ?
-                handle.info().totalCpuDuration().orElse(null) :
+        ExitReport report = exitReport;
+        Duration dur = currStatus == ProcessStatus.ALIVE ? getCpuDuration() :
+                report != null && report.getCpuMillis() >= 0 ? Duration.ofMillis(report.getCpuMillis()) :
                 null;
         if (dur == null) {
             try {
                 ret = Globals.getDurationStringNanos(readNanos());
             } catch (Exception e) {
-                if (status == ProcessStatus.ALIVE) {
+                if (currStatus == ProcessStatus.ALIVE) {
                     // fallback to crude calculation of exec time
                     long currTime = System.currentTimeMillis();
                     long elapsed = (currTime - startTime) * (long) 1e6;
@@ -226,11 +499,13 @@ public class ProcessStruct {
         } else {
             ret = Globals.getDurationString(dur);
         }
+        if (currStatus != ProcessStatus.ALIVE) finalExecTime = ret;
         return ret;
     }
 
     private long readNanos() throws Exception {
-        if (status == ProcessStatus.ALIVE || status == ProcessStatus.INIT_ERROR) throw new RuntimeException();
+        ProcessStatus currStatus = status.get();
+        if (currStatus == ProcessStatus.ALIVE || currStatus == ProcessStatus.INIT_ERROR) throw new RuntimeException();
         try (Scanner reader = new Scanner(new File(outputDir, "elapsed_time.log"))) {
             return reader.nextLong();
         }
@@ -245,21 +520,18 @@ public class ProcessStruct {
     }
 
     public Map<String, String> getConfigMapStr() {
+        Map<String, Object> configMap = this.configMap;
         return configMap.keySet().stream().map(val -> new AbstractMap.SimpleEntry<>(val, configMap.get(val).toString())).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
     private void loadConfigMap() {
         // Loads a process's config file (found in its output folder) into a local map for later retrieval
-        Thread cfigThread = new Thread(() -> {
-            configMap.clear();
-            File configFile = new File(outputDir, "config.txt");
-            try {
-                while (!configFile.exists()) {
-                    Thread.sleep(1000);
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        File configFile = new File(outputDir, "config.txt");
+        ProcessManager.getInstance().getTasks().repeat(pid, "load-config", () -> {
+            // TransRot writes config.txt early in a run; if the run has ended without one, it never will
+            if (!configFile.exists()) return status.get() == ProcessStatus.ALIVE;
+            Map<String, Object> configMap = new LinkedHashMap<>();
+            Map<String, Integer> molCounts = new LinkedHashMap<>();
             try (Scanner reader = new Scanner(configFile)) {
                 for (int i = 0; i < 2; i++) {
                     reader.nextLine();
@@ -288,28 +560,46 @@ public class ProcessStruct {
             } catch (IOException e) {
                 e.printStackTrace();
             }
-        });
-        cfigThread.setDaemon(true);
-        cfigThread.start();
+            this.configMap = Collections.unmodifiableMap(configMap);
+            this.molCounts = Collections.unmodifiableMap(molCounts);
+            return false;
+        }, 0, CONFIG_POLL_FREQ);
     }
 
     public void removeFiles() {
-        try {
-            stdoutFile.delete();
-            stderrFile.delete();
-        } catch (NullPointerException ignored) {}
+        detach();
+        deleteFiles();
+    }
+
+    void detach() {
+        // Stops all reading of this process's logs so they can be deleted
+        LogTailService.getInstance().unregister(this);
+        closeReaders();
+    }
+
+    void deleteFiles() {
+        if (stdoutFile != null) stdoutFile.delete();
+        if (stderrFile != null) stderrFile.delete();
+        if (timestamp != 0) new File(Globals.pidsPath, timestamp + ".exit").delete();
     }
 
     public long getPid() {
         return pid;
     }
 
+    // PID of the process to inspect or signal for this run; differs from getPid() for runs in pooled workers
+    public long getOsPid() {
+        return osPid;
+    }
+
     public List<String> getOutputLog() {
-        return stdoutLog;
+        if (!logsLoaded) return Collections.unmodifiableList(stdoutTail);
+        return stdoutLog == null ? Collections.emptyList() : stdoutLog.view();
     }
 
     public List<String> getErrorLog() {
-        return stderrLog;
+        if (!logsLoaded) return Collections.unmodifiableList(stderrTail);
+        return stderrLog == null ? Collections.emptyList() : stderrLog.view();
     }
 
     public Timestamp getStartTime() {
@@ -317,7 +607,11 @@ public class ProcessStruct {
     }
 
     public String getStartStr() {
-        return getStartTime().toString();
+        if (startStr == null || startStrTimestamp != timestamp) {
+            startStrTimestamp = timestamp;
+            startStr = getStartTime().toString();
+        }
+        return startStr;
     }
 
     public String getStartDTStr() {
@@ -332,8 +626,22 @@ public class ProcessStruct {
         this.logListeners.remove(listener);
     }
 
+    // Batch listeners are called on the EDT with lines coalesced by EdtLogBridge
+    public void addBatchLogListener(ProcessLogBatchListener listener) {
+        this.batchLogListeners.add(listener);
+    }
+
+    public void removeBatchLogListener(ProcessLogBatchListener listener) {
+        this.batchLogListeners.remove(listener);
+        if (batchLogListeners.isEmpty()) EdtLogBridge.getInstance().discard(this);
+    }
+
+    List<ProcessLogBatchListener> getBatchLogListeners() {
+        return batchLogListeners;
+    }
+
     public void addExitListener(ProcessExitListener listener) {
-        if (status != ProcessStatus.ALIVE) listener.onExit();
+        if (status.get() != ProcessStatus.ALIVE) listener.onExit();
         this.exitListeners.add(listener);
     }
 
@@ -341,10 +649,34 @@ public class ProcessStruct {
         this.exitListeners.remove(listener);
     }
 
+    File getStdoutFile() {
+        return stdoutFile;
+    }
+
+    File getStderrFile() {
+        return stderrFile;
+    }
+
+    // CPU, memory and disk history sampled while the run was alive, or null if it was never sampled
+    public ResourceHistory getResourceHistory() {
+        return ResourceSampler.getInstance().getHistory(pid);
+    }
+
+    // Exit code and resource totals of a reporting run, or null while it runs or if it was not launched with a report
+    public ExitReport getExitReport() {
+        return exitReport;
+    }
+
     public File getOutputDir() {
         return outputDir;
     }
 
+    void rename(String name) {
+        if (name.equals(this.name)) return;
+        this.name = name;
+        RefreshScheduler.getInstance().markDirty();
+    }
+
     public String getName() {
         return name == null ? "" : name;
     }
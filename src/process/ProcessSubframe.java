@@ -28,8 +28,9 @@ public class ProcessSubframe extends JFrame {
     }
 
     public static void closeProcessFrame(ProcessStruct ps) {
+        // the PID may since have been taken over by a newer run, whose frame stays open
         ProcessSubframe processSubframe = processFrames.get(ps.getPid());
-        if (processSubframe == null) return;
+        if (processSubframe == null || processSubframe.ps != ps) return;
         processSubframe.dispose();
         processFrames.remove(ps.getPid());
     }
@@ -40,10 +41,18 @@ public class ProcessSubframe extends JFrame {
     private final JTabbedPane tabbedPane;
     private final JLabel statusLabel;
     private final JLabel etLabel;
+    private final JLabel wallLabel;
+    private final JLabel cpuLabel;
+    private final JLabel memLabel;
+    private final JLabel diskLabel;
     private final JLabel dirLabel;
     private final JPanel endPanel;
 
+    private final ProcessLogBatchListener logListener;
+
     private boolean dirShown = false;
+    // Set once the full logs have been asked for, so switching between the log tabs does not queue them again
+    private boolean logsRequested = false;
     private ProcessStruct.ProcessStatus oldStatus;
 
     private ProcessSubframe(ProcessStruct ps) {
@@ -92,7 +101,8 @@ public class ProcessSubframe extends JFrame {
         statusTitleLabel.setForeground(Globals.textColor);
         statusTitleLabel.setFont(Globals.settingsFont);
         statusPanel.add(statusTitleLabel);
-        statusLabel = new JLabel(ps.getStatus().toString());
+        oldStatus = ps.getStatus();
+        statusLabel = new JLabel(oldStatus.toString());
         statusLabel.setForeground(Globals.textColor);
         statusLabel.setFont(Globals.settingsFontNoBold);
         statusPanel.add(statusLabel);
@@ -128,6 +138,13 @@ public class ProcessSubframe extends JFrame {
         etPanel.add(etLabel);
         infoPanel.add(etPanel);
 
+        // Resource figures come from the background sampler (or the exit report), never from the OS directly
+        wallLabel = addInfoRow("Wall Time:  ");
+        cpuLabel = addInfoRow("CPU Usage:  ");
+        memLabel = addInfoRow("Memory:  ");
+        diskLabel = addInfoRow("Disk Written:  ");
+        updateResources();
+
         JPanel dirPanel = new JPanel();
         dirPanel.setOpaque(false);
         dirPanel.setLayout(new BoxLayout(dirPanel, BoxLayout.X_AXIS));
@@ -197,29 +214,40 @@ public class ProcessSubframe extends JFrame {
         List<String> configMap = ps.getConfigMapStr().entrySet().stream().map(kv -> kv.getKey() + ": " + kv.getValue()).collect(Collectors.toList());
         if (configMap.size() > 0) addPanel(configMap, "Config");
         else addPanel(Collections.singletonList("No Output Directory Found"), "Config");
-        JPanel outputPanel = addPanel(ps.getOutputLog(), "Output Log");
-        JPanel errorPanel = addPanel(ps.getErrorLog(), "Error Log");
+        JList<String> outputList = addLogPanel(ps.getOutputLog(), "Output Log");
+        JList<String> errorList = addLogPanel(ps.getErrorLog(), "Error Log");
+
+        // finished runs start with a short tail; the full logs are indexed the first time either log tab is opened
+        tabbedPane.addChangeListener(e -> {
+            String tab = tabbedPane.getTitleAt(tabbedPane.getSelectedIndex());
+            if (ps.isLogsLoaded() || logsRequested || !(tab.equals("Output Log") || tab.equals("Error Log"))) return;
+            logsRequested = true;
+            ProcessManager.getInstance().getTasks().submit(ps.getPid(), "load-logs", () -> {
+                ps.loadLogs();
+                SwingUtilities.invokeLater(() -> {
+                    ((LogListModel) outputList.getModel()).setLines(ps.getOutputLog());
+                    ((LogListModel) errorList.getModel()).setLines(ps.getErrorLog());
+                    outputList.ensureIndexIsVisible(outputList.getModel().getSize() - 1);
+                    errorList.ensureIndexIsVisible(errorList.getModel().getSize() - 1);
+                });
+            });
+        });
 
-        ps.addLogListener(new ProcessLogListener() {
+        logListener = new ProcessLogBatchListener() {
             @Override
-            public void onStdout(String line) {
-                JLabel label = new JLabel(line);
-                label.setForeground(Globals.textColor);
-                label.setFont(Globals.settingsFontNoBold);
-                outputPanel.add(label);
+            public void onStdout(List<String> lines) {
+                refreshLog(outputList);
             }
 
             @Override
-            public void onStderr(String line) {
-                JLabel label = new JLabel(line);
-                label.setForeground(Globals.textColor);
-                label.setFont(Globals.settingsFontNoBold);
-                errorPanel.add(label);
+            public void onStderr(List<String> lines) {
+                refreshLog(errorList);
             }
-        });
+        };
+        ps.addBatchLogListener(logListener);
 
         // only adds output tab if the process has exited
-        ps.addExitListener(() -> {
+        ps.addExitListener(() -> SwingUtilities.invokeLater(() -> {
             JPanel outpPanel = new JPanel();
             outpPanel.setLayout(new BoxLayout(outpPanel, BoxLayout.Y_AXIS));
             outpPanel.setBackground(Globals.menuBgColorLight);
@@ -276,7 +304,7 @@ public class ProcessSubframe extends JFrame {
                 outpPanel.add(notFoundLabel);
             }
             tabbedPane.addTab("Output", outpSP);
-        });
+        }));
 
         tabbedPane.setBackground(Globals.menuBgColor);
         tabbedPane.setForeground(Globals.textColor);
@@ -344,28 +372,118 @@ public class ProcessSubframe extends JFrame {
         return panel;
     }
 
+    private JList<String> addLogPanel(List<String> lines, String tabHeader) {
+        // Logs can hold hundreds of thousands of lines, so a list only renders the rows in view
+        JList<String> list = new JList<>(new LogListModel(lines));
+        list.setBackground(Globals.menuBgColorLight);
+        list.setForeground(Globals.textColor);
+        list.setFont(Globals.settingsFontNoBold);
+        list.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        // fixed cell sizes keep the list from measuring every line; width grows as wider rows are rendered
+        list.setFixedCellHeight(list.getFontMetrics(Globals.settingsFontNoBold).getHeight() + 2);
+        list.setFixedCellWidth(200);
+        DefaultListCellRenderer renderer = new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                Component c = super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                int width = c.getPreferredSize().width;
+                if (width > list.getFixedCellWidth()) SwingUtilities.invokeLater(() -> list.setFixedCellWidth(width));
+                return c;
+            }
+        };
+        list.setCellRenderer(renderer);
+
+        JScrollPane sp = new JScrollPane(list, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        sp.getVerticalScrollBar().setUnitIncrement(16);
+        sp.setBorder(null);
+        tabbedPane.addTab(tabHeader, sp);
+        return list;
+    }
+
+    private void refreshLog(JList<String> list) {
+        // Follows the tail only if the view was already scrolled to the bottom
+        JScrollBar bar = ((JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, list)).getVerticalScrollBar();
+        boolean atBottom = bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum();
+        if (((LogListModel) list.getModel()).refresh() && atBottom) {
+            list.ensureIndexIsVisible(list.getModel().getSize() - 1);
+        }
+    }
+
     public static void updateAll() {
         new HashMap<>(processFrames).values().forEach(psf -> {
-            if (psf.isVisible()) psf.updateWindow();
+            if (psf.isShowing() && (psf.getExtendedState() & JFrame.ICONIFIED) == 0) psf.updateWindow();
         });
     }
 
     private void updateWindow() {
-        statusLabel.setText(ps.getStatus().toString());
-        etLabel.setText(ps.getExecTime());
+        // JLabel.setText repaints on its own, so only a layout change needs an explicit revalidate
+        ProcessStruct.ProcessStatus status = ps.getStatus();
+        if (status != oldStatus) statusLabel.setText(status.toString());
+        String execTime = ps.getExecTime();
+        if (!execTime.equals(etLabel.getText())) etLabel.setText(execTime);
+        updateResources();
 
         if (ps.getOutputDir() != null && !dirShown && ps.getOutputDir().exists()) {
             dirShown = true;
             dirLabel.setText("<html><u>" + ps.getOutputDir().getAbsolutePath() + "</u></html>");
         }
 
-        if (ps.getStatus() != ProcessStruct.ProcessStatus.ALIVE && oldStatus == ProcessStruct.ProcessStatus.ALIVE) {
+        if (status != ProcessStruct.ProcessStatus.ALIVE && oldStatus == ProcessStruct.ProcessStatus.ALIVE) {
             getContentPane().remove(endPanel);
+            revalidate();
+            repaint();
         }
-        oldStatus = ps.getStatus();
+        oldStatus = status;
+    }
+
+    private JLabel addInfoRow(String title) {
+        JPanel panel = new JPanel();
+        panel.setOpaque(false);
+        panel.setLayout(new BoxLayout(panel, BoxLayout.X_AXIS));
+        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setForeground(Globals.textColor);
+        titleLabel.setFont(Globals.settingsFont);
+        panel.add(titleLabel);
+        JLabel valueLabel = new JLabel();
+        valueLabel.setForeground(Globals.textColor);
+        valueLabel.setFont(Globals.settingsFontNoBold);
+        panel.add(valueLabel);
+        infoPanel.add(panel);
+        return valueLabel;
+    }
+
+    private void updateResources() {
+        // A finished run shows its exit report where there is one, else the last values sampled while it ran
+        ResourceHistory history = ps.getResourceHistory();
+        ResourceHistory.Sample latest = history == null ? null : history.getLatest();
+        ExitReport report = ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE ? null : ps.getExitReport();
+        String na = "Information Not Available";
+
+        String wall = report != null ? Globals.getDurationString(report.getWallMillis() / 1000) :
+                latest != null ? Globals.getDurationString(latest.getWallMillis() / 1000) : na;
+        String cpu;
+        if (report != null) cpu = report.getWallMillis() > 0 && report.getCpuMillis() >= 0 ? String.format("%.0f%% average", report.getCpuMillis() * 100.0 / report.getWallMillis()) : na;
+        else if (latest != null && ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) cpu = String.format("%.0f%%", latest.getCpuPercent());
+        else cpu = latest != null && latest.getWallMillis() > 0 ? String.format("%.0f%% average", latest.getCpuMillis() * 100.0 / latest.getWallMillis()) : na;
+        long peakKb = report != null ? report.getMaxRssKb() : history != null ? history.getPeakRssKb() : -1;
+        String mem;
+        if (latest != null && latest.getRssKb() >= 0 && ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) mem = String.format("%s (peak %s)", Globals.getSizeString(latest.getRssKb() * 1024), Globals.getSizeString(Math.max(peakKb, latest.getRssKb()) * 1024));
+        else mem = peakKb >= 0 ? String.format("peak %s", Globals.getSizeString(peakKb * 1024)) : na;
+        String disk = latest != null && latest.getWrittenBytes() >= 0 ? Globals.getSizeString(latest.getWrittenBytes()) : na;
+
+        if (!wall.equals(wallLabel.getText())) wallLabel.setText(wall);
+        if (!cpu.equals(cpuLabel.getText())) cpuLabel.setText(cpu);
+        if (!mem.equals(memLabel.getText())) memLabel.setText(mem);
+        if (!disk.equals(diskLabel.getText())) diskLabel.setText(disk);
+    }
 
-        repaint();
-        revalidate();
+    @Override
+    public void dispose() {
+        ps.removeBatchLogListener(logListener);
+        super.dispose();
     }
 
     private void closeWindow() {
@@ -0,0 +1,210 @@
+package process;
+
+import util.Globals;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+
+public class ProcessTableModel extends AbstractTableModel {
+    public static final String[] COLUMNS = {"PID", "Process Name", "Started At", "Elapsed Time", "Status", "Details"};
+    private static final String DETAILS_TEXT = "<html><u>View logs & other details</u></html>";
+
+    private static class Row {
+        // a row shows either a run or a queued submission, keyed by PID or by the negated queue ID
+        final long key;
+        final ProcessStruct ps;
+        RunQueue.QueuedRun queued;
+        final Object[] values = new Object[COLUMNS.length];
+        // ordering keys as of the row's last (re)insertion
+        ProcessStruct.ProcessStatus status;
+        long rank;
+
+        Row(ProcessStruct ps) {
+            this.key = ps.getPid();
+            this.ps = ps;
+        }
+
+        Row(RunQueue.QueuedRun queued) {
+            this.key = -queued.getId();
+            this.ps = null;
+            this.queued = queued;
+        }
+    }
+
+    // Rows are ordered by status, then newest start time first; queued runs in the order they will be admitted
+    private static final Comparator<Row> ORDER = (r1, r2) -> {
+        if (r1.status != r2.status) return r1.status.ordinal() - r2.status.ordinal();
+        int cmp = Long.compare(r1.rank, r2.rank);
+        if (cmp != 0) return cmp;
+        return Long.compare(r1.key, r2.key);
+    };
+
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<Long, Integer> index = new HashMap<>();
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Long.class : Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return rows.get(row).values[column];
+    }
+
+    // Null for a queued run
+    public ProcessStruct getProcessAt(int row) {
+        return rows.get(row).ps;
+    }
+
+    // Null unless the row is a queued run
+    public RunQueue.QueuedRun getQueuedAt(int row) {
+        return rows.get(row).queued;
+    }
+
+    public List<ProcessStruct> getProcesses() {
+        List<ProcessStruct> processes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.ps != null) processes.add(row.ps);
+        }
+        return processes;
+    }
+
+    public void update(Collection<ProcessStruct> processes, List<RunQueue.QueuedRun> queued) {
+        // Applies the current process list and queue, firing events only for rows and cells that actually changed
+        Set<Long> seen = new HashSet<>();
+        for (ProcessStruct ps : processes) {
+            seen.add(ps.getPid());
+            Integer i = index.get(ps.getPid());
+            if (i != null && rows.get(i).ps != ps) {
+                // a newer run under a reused PID has replaced the row's run
+                removeAt(i);
+                i = null;
+            }
+            update(i == null ? new Row(ps) : rows.get(i), i);
+        }
+        for (int position = 0; position < queued.size(); position++) {
+            RunQueue.QueuedRun run = queued.get(position);
+            seen.add(-run.getId());
+            Integer i = index.get(-run.getId());
+            Row row = i == null ? new Row(run) : rows.get(i);
+            row.queued = run;
+            update(row, i);
+        }
+        if (seen.size() != rows.size()) removeMissing(seen);
+    }
+
+    private void update(Row row, Integer i) {
+        if (i == null) {
+            setOrderKeys(row);
+            computeValues(row, row.values);
+            insert(row);
+        } else if (row.status != status(row) || row.rank != rank(row)) {
+            // ordering key changed, so the row is moved rather than the whole table re-sorted
+            removeAt(i);
+            setOrderKeys(row);
+            computeValues(row, row.values);
+            insert(row);
+        } else {
+            updateCells(i, row);
+        }
+    }
+
+    private void removeMissing(Set<Long> seen) {
+        // Removed rows are dropped one contiguous run at a time, so a bulk dismissal of (status-grouped) runs
+        // fires a handful of events and reindexes once, rather than once per row
+        int lowest = rows.size();
+        for (int end = rows.size() - 1; end >= 0; end--) {
+            if (seen.contains(rows.get(end).key)) continue;
+            int start = end;
+            while (start > 0 && !seen.contains(rows.get(start - 1).key)) start--;
+            List<Row> run = rows.subList(start, end + 1);
+            for (Row row : run) index.remove(row.key);
+            run.clear();
+            fireTableRowsDeleted(start, end);
+            lowest = start;
+            end = start;
+        }
+        reindex(lowest);
+    }
+
+    private static ProcessStruct.ProcessStatus status(Row row) {
+        return row.ps == null ? ProcessStruct.ProcessStatus.QUEUED : row.ps.getStatus();
+    }
+
+    private static long rank(Row row) {
+        if (row.ps != null) return -row.ps.getStartTime().getTime();
+        // priorities are far apart, so submission times only order runs within one
+        return row.queued.getPriority().ordinal() * (Long.MAX_VALUE / 4) + row.queued.getId();
+    }
+
+    private void setOrderKeys(Row row) {
+        row.status = status(row);
+        row.rank = rank(row);
+    }
+
+    private void computeValues(Row row, Object[] values) {
+        // status is taken from the ordering key so a row's position and its Status cell always agree
+        ProcessStruct ps = row.ps;
+        if (ps == null) {
+            values[0] = null;
+            values[1] = row.queued.getName();
+            values[2] = row.queued.getSubmitTime().toString();
+            values[3] = "Waiting " + Globals.getDurationString((System.currentTimeMillis() - row.queued.getId()) / 1000);
+            values[4] = row.status;
+            values[5] = row.queued.getPriority() + " priority";
+            return;
+        }
+        values[0] = ps.getOsPid();
+        values[1] = ps.getName();
+        values[2] = ps.getStartStr();
+        values[3] = ps.getExecTime();
+        values[4] = row.status;
+        values[5] = DETAILS_TEXT;
+    }
+
+    private void updateCells(int i, Row row) {
+        Object[] values = new Object[COLUMNS.length];
+        computeValues(row, values);
+        for (int c = 0; c < values.length; c++) {
+            if (!Objects.equals(values[c], row.values[c])) {
+                row.values[c] = values[c];
+                fireTableCellUpdated(i, c);
+            }
+        }
+    }
+
+    private void insert(Row row) {
+        int pos = Collections.binarySearch(rows, row, ORDER);
+        if (pos < 0) pos = -pos - 1;
+        rows.add(pos, row);
+        reindex(pos);
+        fireTableRowsInserted(pos, pos);
+    }
+
+    private void removeAt(int i) {
+        Row row = rows.remove(i);
+        index.remove(row.key);
+        reindex(i);
+        fireTableRowsDeleted(i, i);
+    }
+
+    private void reindex(int from) {
+        for (int i = from; i < rows.size(); i++) index.put(rows.get(i).key, i);
+    }
+}
@@ -0,0 +1,126 @@
+package process;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class ProcessTasks {
+    // Owner key for work not tied to a known PID yet (e.g. waiting for the Windows wrapper to report one)
+    public static final long NO_PROCESS = 0;
+    public static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<Long, Set<Task>> groups = new ConcurrentHashMap<>();
+
+    private class Task implements Runnable {
+        final long pid;
+        final String name;
+        final BooleanSupplier body;
+        final long period;
+        final long created = System.currentTimeMillis();
+        volatile int runs = 0;
+        private Future<?> future = null;
+        private boolean cancelled = false;
+
+        Task(long pid, String name, BooleanSupplier body, long period) {
+            this.pid = pid;
+            this.name = name;
+            this.body = body;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            boolean again;
+            try {
+                again = body.getAsBoolean();
+            } catch (Throwable e) {
+                e.printStackTrace();
+                again = false;
+            }
+            runs++;
+            if (again) schedule(period);
+            else finish();
+        }
+
+        synchronized void schedule(long delay) {
+            if (cancelled) return;
+            future = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (future != null) future.cancel(true);
+            finish();
+        }
+
+        private void finish() {
+            // in one step with the check for an empty group, so a task added to it by repeat() at the same time is kept
+            groups.computeIfPresent(pid, (k, group) -> {
+                group.remove(this);
+                return group.isEmpty() ? null : group;
+            });
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s, %d runs, %d s old)", name, period > 0 ? "every " + period + " ms" : "once", runs, (System.currentTimeMillis() - created) / 1000);
+        }
+    }
+
+    ProcessTasks() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(THREADS, r -> {
+            Thread t = new Thread(r, "process-task-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public void submit(long pid, String name, Runnable task) {
+        repeat(pid, name, () -> {
+            task.run();
+            return false;
+        }, 0, 0);
+    }
+
+    public void repeat(long pid, String name, BooleanSupplier task, long initialDelay, long period) {
+        // Runs task after initialDelay, then again every period ms for as long as it returns true
+        // Tasks reschedule themselves instead of sleeping, so waiting never ties up a pool thread
+        Task t = new Task(pid, name, task, period);
+        groups.compute(pid, (k, group) -> {
+            if (group == null) group = ConcurrentHashMap.newKeySet();
+            group.add(t);
+            return group;
+        });
+        t.schedule(initialDelay);
+    }
+
+    public void cancel(long pid) {
+        // Cancels (and interrupts) every task owned by a process, e.g. when it is dismissed
+        Set<Task> group = groups.remove(pid);
+        if (group == null) return;
+        for (Task t : group) t.cancel();
+    }
+
+    public int getTaskCount() {
+        return groups.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d tasks on %d threads (%d active, %d queued)%n", getTaskCount(), executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size()));
+        new TreeMap<>(groups).forEach((pid, group) -> {
+            sb.append(pid == NO_PROCESS ? "unassigned" : "pid " + pid).append(":\n");
+            for (Task t : group) sb.append("    ").append(t).append('\n');
+        });
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
@@ -0,0 +1,78 @@
+package process;
+
+import java.util.ArrayDeque;
+
+// Throughput of the run queue: completed runs per hour, how busy the cores were, and how long runs waited to start
+public class QueueStats {
+    public static final long WINDOW = 60 * 60 * 1000;
+    public static final int MAX_SAMPLES = 1000;
+
+    private final int cores;
+    private final long created = System.currentTimeMillis();
+    private final ArrayDeque<Long> completions = new ArrayDeque<>();
+    // (time, utilisation in thousandths) pairs, one per scheduler tick
+    private final ArrayDeque<long[]> utilisation = new ArrayDeque<>();
+    private final ArrayDeque<Long> waits = new ArrayDeque<>();
+    private int admitted = 0;
+
+    QueueStats(int cores) {
+        this.cores = cores;
+    }
+
+    synchronized void recordCompletion(long time) {
+        completions.addLast(time);
+        expire(time);
+    }
+
+    synchronized void recordAdmission(long waitMillis) {
+        admitted++;
+        if (waits.size() == MAX_SAMPLES) waits.removeFirst();
+        waits.addLast(waitMillis);
+    }
+
+    synchronized void recordCpuPercent(long time, double cpuPercent) {
+        // cpuPercent is summed over runs, so 100 per fully busy core
+        utilisation.addLast(new long[] {time, Math.round(cpuPercent * 10 / cores)});
+        expire(time);
+    }
+
+    private void expire(long now) {
+        while (!completions.isEmpty() && now - completions.peekFirst() > WINDOW) completions.removeFirst();
+        while (!utilisation.isEmpty() && now - utilisation.peekFirst()[0] > WINDOW) utilisation.removeFirst();
+    }
+
+    public synchronized int getAdmitted() {
+        return admitted;
+    }
+
+    // Runs finished over the last hour, extrapolated while this instance has been up for less than that
+    public synchronized double getRunsPerHour() {
+        long observed = Math.min(WINDOW, System.currentTimeMillis() - created);
+        return completions.size() * (double) WINDOW / Math.max(observed, 60 * 1000);
+    }
+
+    // Mean share of the machine's cores used by runs over the last hour, from 0 to 1
+    public synchronized double getCoreUtilisation() {
+        if (utilisation.isEmpty()) return 0;
+        return utilisation.stream().mapToLong(sample -> sample[1]).average().orElse(0) / 1000;
+    }
+
+    // Share of the cores used by runs at the last tick
+    public synchronized double getCurrentUtilisation() {
+        return utilisation.isEmpty() ? 0 : utilisation.peekLast()[1] / 1000.0;
+    }
+
+    public synchronized long getMeanWait() {
+        return (long) waits.stream().mapToLong(Long::longValue).average().orElse(0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%.1f runs/hour; %.0f%% core utilisation (%.0f%% now); %d admitted after %s mean wait",
+                getRunsPerHour(), getCoreUtilisation() * 100, getCurrentUtilisation() * 100, admitted, formatWait(getMeanWait()));
+    }
+
+    private static String formatWait(long millis) {
+        return millis < 1000 ? millis + " ms" : String.format("%.1f s", millis / 1000.0);
+    }
+}
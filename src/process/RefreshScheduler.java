@@ -0,0 +1,39 @@
+package process;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RefreshScheduler {
+    // Elapsed-time text only needs refreshing once per second; status changes are pushed immediately
+    public static final int TICK_FREQ = 1000;
+
+    private static RefreshScheduler Instance = null;
+
+    public static synchronized RefreshScheduler getInstance() {
+        if (Instance == null)
+            Instance = new RefreshScheduler();
+        return Instance;
+    }
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final Timer tickTimer;
+
+    private RefreshScheduler() {
+        tickTimer = new Timer(TICK_FREQ, e -> refresh());
+        tickTimer.start();
+    }
+
+    // Called from any thread when a status, process list or exit change should be shown right away
+    public void markDirty() {
+        if (dirty.compareAndSet(false, true)) SwingUtilities.invokeLater(this::refresh);
+    }
+
+    private void refresh() {
+        // Only windows that are actually showing are updated
+        dirty.set(false);
+        ProcessGUI monitor = ProcessGUI.getShownInstance();
+        if (monitor != null) monitor.updateGUI();
+        ProcessSubframe.updateAll();
+    }
+}
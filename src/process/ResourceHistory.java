@@ -0,0 +1,116 @@
+package process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-size ring buffer of resource samples for one run, kept as parallel primitive arrays
+public class ResourceHistory {
+    public static class Sample {
+        private final long time;
+        private final long wallMillis;
+        private final long cpuMillis;
+        private final float cpuPercent;
+        private final long rssKb;
+        private final long writtenBytes;
+
+        Sample(long time, long wallMillis, long cpuMillis, float cpuPercent, long rssKb, long writtenBytes) {
+            this.time = time;
+            this.wallMillis = wallMillis;
+            this.cpuMillis = cpuMillis;
+            this.cpuPercent = cpuPercent;
+            this.rssKb = rssKb;
+            this.writtenBytes = writtenBytes;
+        }
+
+        // Epoch milliseconds at which the sample was taken
+        public long getTime() {
+            return time;
+        }
+
+        public long getWallMillis() {
+            return wallMillis;
+        }
+
+        // CPU time of the run and all of its descendants
+        public long getCpuMillis() {
+            return cpuMillis;
+        }
+
+        // CPU use since the previous sample; above 100 when more than one core is busy
+        public float getCpuPercent() {
+            return cpuPercent;
+        }
+
+        // -1 where the platform does not expose the value
+        public long getRssKb() {
+            return rssKb;
+        }
+
+        public long getWrittenBytes() {
+            return writtenBytes;
+        }
+    }
+
+    private final long[] times;
+    private final long[] cpuMillis;
+    private final float[] cpuPercents;
+    private final long[] rssKbs;
+    private final long[] writtenBytes;
+    private final long startTime;
+    private int next = 0;
+    private int size = 0;
+    private long peakRssKb = -1;
+
+    ResourceHistory(long startTime, int capacity) {
+        this.startTime = startTime;
+        times = new long[capacity];
+        cpuMillis = new long[capacity];
+        cpuPercents = new float[capacity];
+        rssKbs = new long[capacity];
+        writtenBytes = new long[capacity];
+    }
+
+    synchronized void add(long time, long cpu, long rssKb, long written) {
+        float percent = 0;
+        if (size > 0) {
+            int prev = (next - 1 + times.length) % times.length;
+            long dt = time - times[prev];
+            if (dt > 0) percent = Math.max(0, (cpu - cpuMillis[prev]) * 100f / dt);
+        }
+        times[next] = time;
+        cpuMillis[next] = cpu;
+        cpuPercents[next] = percent;
+        rssKbs[next] = rssKb;
+        writtenBytes[next] = written;
+        next = (next + 1) % times.length;
+        if (size < times.length) size++;
+        peakRssKb = Math.max(peakRssKb, rssKb);
+    }
+
+    private Sample sample(int i) {
+        return new Sample(times[i], times[i] - startTime, cpuMillis[i], cpuPercents[i], rssKbs[i], writtenBytes[i]);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Most recent sample, or null if none has been taken yet
+    public synchronized Sample getLatest() {
+        return size == 0 ? null : sample((next - 1 + times.length) % times.length);
+    }
+
+    // Oldest first
+    public synchronized List<Sample> getSamples() {
+        List<Sample> samples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            samples.add(sample((next - size + i + times.length) % times.length));
+        }
+        return samples;
+    }
+
+    // Highest RSS seen across every sample, including those since overwritten
+    public synchronized long getPeakRssKb() {
+        return peakRssKb;
+    }
+}
@@ -0,0 +1,157 @@
+package process;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+ * Samples CPU time, RSS and bytes written for every live run, including any processes the run has started, into a
+ * ResourceHistory per run. This is the only place that asks the OS about runs periodically; the GUI reads the cached
+ * samples. On Linux everything is read from /proc in one pass per sample; elsewhere only CPU time is available.
+ */
+public class ResourceSampler {
+    public static final int SAMPLE_FREQ = Integer.getInteger("vtr.sampleFreq", 1000);
+    // Samples kept per run; at the default rate, the last 10 minutes
+    public static final int HISTORY_SIZE = Integer.getInteger("vtr.sampleHistory", 600);
+    // USER_HZ, the unit of the CPU times in /proc/<pid>/stat, is 100 on every mainstream Linux build
+    private static final int CLOCK_TICKS = 100;
+    private static final Path PROC = Paths.get("/proc");
+
+    private static ResourceSampler Instance = null;
+
+    public static synchronized ResourceSampler getInstance() {
+        if (Instance == null)
+            Instance = new ResourceSampler();
+        return Instance;
+    }
+
+    private final Map<Long, ResourceHistory> histories = new ConcurrentHashMap<>();
+    private final boolean procAvailable = Files.isReadable(PROC.resolve("self").resolve("stat"));
+    private boolean started = false;
+
+    private ResourceSampler() {}
+
+    synchronized void start(ProcessTasks tasks) {
+        if (started) return;
+        started = true;
+        tasks.repeat(ProcessTasks.NO_PROCESS, "resource-sample", () -> {
+            try {
+                sample();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            return true;
+        }, 0, SAMPLE_FREQ);
+    }
+
+    // History of a run, or null if it has not been sampled; kept after the run exits until it is dismissed
+    public ResourceHistory getHistory(long pid) {
+        return histories.get(pid);
+    }
+
+    private void sample() {
+        List<ProcessStruct> processes = ProcessManager.getInstance().getProcesses();
+        Set<Long> tracked = processes.stream().map(ProcessStruct::getPid).collect(Collectors.toSet());
+        histories.keySet().retainAll(tracked);
+        List<ProcessStruct> live = processes.stream().filter(ps -> ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE).collect(Collectors.toList());
+        if (live.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        if (procAvailable) sampleProc(live, now);
+        else sampleHandles(live, now);
+    }
+
+    private ResourceHistory history(ProcessStruct ps) {
+        return histories.computeIfAbsent(ps.getPid(), pid -> new ResourceHistory(ps.getStartTime().getTime(), HISTORY_SIZE));
+    }
+
+    private void sampleProc(List<ProcessStruct> live, long now) {
+        // One pass over /proc gives every process's parent and CPU time, from which each run's tree is summed
+        Map<Long, List<Long>> children = new HashMap<>();
+        Map<Long, Long> cpuTicks = new HashMap<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(PROC, entry -> entry.getFileName().toString().chars().allMatch(Character::isDigit))) {
+            for (Path dir : dirs) {
+                String stat = read(dir.resolve("stat"));
+                if (stat == null) continue;
+                // the command name may contain spaces or parentheses, so fields are counted from the last ')'
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                try {
+                    long pid = Long.parseLong(dir.getFileName().toString());
+                    long ppid = Long.parseLong(fields[1]);
+                    cpuTicks.put(pid, Long.parseLong(fields[11]) + Long.parseLong(fields[12]));
+                    children.computeIfAbsent(ppid, k -> new ArrayList<>()).add(pid);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException ignored) {}
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        for (ProcessStruct ps : live) {
+            if (!cpuTicks.containsKey(ps.getOsPid())) continue;
+            long ticks = 0;
+            long rssKb = 0;
+            long written = 0;
+            boolean rssKnown = false;
+            boolean writtenKnown = false;
+            Deque<Long> tree = new ArrayDeque<>(List.of(ps.getOsPid()));
+            while (!tree.isEmpty()) {
+                long pid = tree.pop();
+                tree.addAll(children.getOrDefault(pid, Collections.emptyList()));
+                ticks += cpuTicks.getOrDefault(pid, 0L);
+                Path dir = PROC.resolve(Long.toString(pid));
+                long rss = readField(dir.resolve("status"), "VmRSS:");
+                if (rss >= 0) {
+                    rssKb += rss;
+                    rssKnown = true;
+                }
+                long bytes = readField(dir.resolve("io"), "write_bytes:");
+                if (bytes >= 0) {
+                    written += bytes;
+                    writtenKnown = true;
+                }
+            }
+            history(ps).add(now, ticks * 1000 / CLOCK_TICKS, rssKnown ? rssKb : -1, writtenKnown ? written : -1);
+        }
+    }
+
+    private void sampleHandles(List<ProcessStruct> live, long now) {
+        for (ProcessStruct ps : live) {
+            Optional<ProcessHandle> handle = ProcessHandle.of(ps.getOsPid());
+            if (handle.isEmpty()) continue;
+            long cpu = handle.get().info().totalCpuDuration().map(Duration::toMillis).orElse(0L);
+            cpu += handle.get().descendants().mapToLong(child -> child.info().totalCpuDuration().map(Duration::toMillis).orElse(0L)).sum();
+            history(ps).add(now, cpu, -1, -1);
+        }
+    }
+
+    private static String read(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // the process exited mid-sample, or its file is not readable by this user
+            return null;
+        }
+    }
+
+    private static long readField(Path file, String key) {
+        // Value of a "Key: value" line as a number, or -1
+        String content = read(file);
+        if (content == null) return -1;
+        int start = content.indexOf(key);
+        if (start < 0) return -1;
+        int end = content.indexOf('\n', start);
+        try {
+            return Long.parseLong(content.substring(start + key.length(), end < 0 ? content.length() : end).replaceAll("[^0-9]", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
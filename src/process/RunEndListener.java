@@ -0,0 +1,7 @@
+package process;
+
+// Told when a run's final status is known (once per ProcessStruct, including runs found ended at startup), and when a
+// run is dismissed; called off the EDT
+public interface RunEndListener {
+    void onRunEnded(ProcessStruct ps);
+}
@@ -0,0 +1,509 @@
+package process;
+
+import util.Globals;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/*
+ * Submission queue in front of ProcessManager.runProcess. Runs are admitted highest priority first, in submission order
+ * within a priority, while fewer than MAX_RUNS are alive and the free memory fits another run of the size seen so far.
+ *
+ * The queue is kept in run_queue.properties, which is rewritten (temp file + atomic rename) under a file lock on every
+ * change, so it survives a restart and is shared by every VTR instance. Runs taken off the queue are kept in the file
+ * as launches until every instance can see their process, so instances admitting at the same time share one limit.
+ * The files a run reads are replaced with snapshots (see SnapshotStore) when it is submitted, as the saved ones may be
+ * overwritten before it starts.
+ */
+public class RunQueue {
+    // Runs alive at once; defaults to one per core
+    public static final int MAX_RUNS = Integer.getInteger("vtr.maxRuns", Runtime.getRuntime().availableProcessors());
+    // Memory assumed for a run until the peak RSS of one has been measured
+    public static final long RUN_MEMORY_KB = Long.getLong("vtr.runMemoryMb", 512) * 1024;
+    public static final int ADMIT_FREQ = 1000;
+    // A launched run counts against the limit until every instance can see its process, or for at most this long
+    public static final int LAUNCH_TIMEOUT = 30 * 1000;
+    // Snapshots no queued run refers to are removed once they have not been used for this long
+    public static final long ORPHAN_AGE = 24 * 60 * 60 * 1000;
+    public static final long CLEANUP_FREQ = 60 * 60 * 1000;
+    // Arguments naming a file the run reads, whose value is replaced with a snapshot
+    private static final Set<String> SNAPSHOT_FLAGS = Set.of("-c", "-d", "-i", "-p");
+
+    public enum Priority {
+        HIGH("High"), NORMAL("Normal"), LOW("Low");
+
+        private final String text;
+
+        Priority(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    public static class QueuedRun {
+        private final long id;
+        private final String name;
+        private final Priority priority;
+        private final List<String> arguments;
+
+        QueuedRun(long id, String name, Priority priority, List<String> arguments) {
+            this.id = id;
+            this.name = name;
+            this.priority = priority;
+            this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+        }
+
+        // Submission time in epoch milliseconds, unique within the queue
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public List<String> getArguments() {
+            return arguments;
+        }
+
+        public Timestamp getSubmitTime() {
+            return new Timestamp(id);
+        }
+    }
+
+    // A run taken off the queue by some instance whose process may not be visible to every instance yet
+    private static class Launch {
+        final long runId;
+        final long admitted;
+        // Launch timestamp, or null while the run is being started
+        final Long timestamp;
+
+        Launch(long runId, long admitted, Long timestamp) {
+            this.runId = runId;
+            this.admitted = admitted;
+            this.timestamp = timestamp;
+        }
+
+        static Launch parse(String str) {
+            String[] parts = str.split(":");
+            return new Launch(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2].equals("-") ? null : Long.parseLong(parts[2]));
+        }
+
+        String format() {
+            return runId + ":" + admitted + ":" + (timestamp == null ? "-" : timestamp);
+        }
+    }
+
+    private interface Change {
+        void apply(List<QueuedRun> runs, List<Launch> launches) throws IOException;
+    }
+
+    // Work done while holding the queue's lock file
+    private interface Locked {
+        void run() throws IOException;
+    }
+
+    private static final Comparator<QueuedRun> ORDER = Comparator.comparing(QueuedRun::getPriority).thenComparingLong(QueuedRun::getId);
+
+    private static RunQueue Instance = null;
+
+    public static synchronized RunQueue getInstance() {
+        if (Instance == null)
+            Instance = new RunQueue();
+        return Instance;
+    }
+
+    private final File queueFile = new File(Globals.queuePath);
+    private final File queueDir = new File(Globals.queueDir);
+    private final QueueStats stats = new QueueStats(Runtime.getRuntime().availableProcessors());
+    private FileChannel lock = null;
+    private volatile List<QueuedRun> queued = Collections.emptyList();
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+    // Launches as of the last load, for the next rewrite
+    private List<Launch> loadedLaunches = Collections.emptyList();
+    // Held while admitting, so two admissions never decide on the same free slots; never taken on the EDT
+    private final Object admitLock = new Object();
+    private Set<Long> wasAlive = new HashSet<>();
+    private ProcessTasks tasks = null;
+    private long lastId = 0;
+
+    private RunQueue() {
+        try {
+            if (!queueDir.exists()) queueDir.mkdir();
+            lock = FileChannel.open(new File(queueDir, "queue.lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // without the lock, the queue is still used but is not safe to share between instances
+            e.printStackTrace();
+        }
+    }
+
+    synchronized void start(ProcessTasks tasks) {
+        if (this.tasks != null) return;
+        this.tasks = tasks;
+        tasks.repeat(ProcessTasks.NO_PROCESS, "run-queue-cleanup", () -> {
+            reload();
+            removeUnusedSnapshots();
+            return true;
+        }, 0, CLEANUP_FREQ);
+        tasks.repeat(ProcessTasks.NO_PROCESS, "run-queue", () -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            return true;
+        }, 0, ADMIT_FREQ);
+    }
+
+    public QueueStats getStats() {
+        return stats;
+    }
+
+    // Queued runs in the order they will be admitted
+    public List<QueuedRun> getQueued() {
+        return queued;
+    }
+
+    public boolean nameExists(String name) {
+        return queued.stream().map(QueuedRun::getName).anyMatch(n -> n.equalsIgnoreCase(name));
+    }
+
+    public QueuedRun submit(String name, Priority priority, List<String> arguments) throws IOException {
+        Map<String, List<String>> runs = new LinkedHashMap<>();
+        runs.put(name, arguments);
+        return submitAll(priority, runs).get(0);
+    }
+
+    public List<QueuedRun> submitAll(Priority priority, Map<String, List<String>> runs) throws IOException {
+        // Queues runs by name, in order, with one rewrite of the queue file
+        // The files named by SNAPSHOT_FLAGS are snapshotted now; every other argument is passed to the run unchanged
+        // Files are read and hashed before the queue is locked, as that may take a while; runs of a batch usually share
+        // most of their files, which are then read once
+        Map<String, File> snapshots = new HashMap<>();
+        for (List<String> args : runs.values()) {
+            for (int i = 0; i < args.size() - 1; i++) {
+                if (SNAPSHOT_FLAGS.contains(args.get(i)) && !snapshots.containsKey(args.get(i + 1))) snapshots.put(args.get(i + 1), snapshot(args.get(i + 1)));
+            }
+        }
+        List<QueuedRun> submitted = new ArrayList<>();
+        update((queue, launches) -> {
+            // under the lock, no instance can remove a snapshot before the run is queued; one removed since it was
+            // stored is stored again
+            for (Map.Entry<String, File> snapshot : snapshots.entrySet()) {
+                if (!snapshot.getValue().exists()) snapshot.setValue(snapshot(snapshot.getKey()));
+            }
+            for (Map.Entry<String, List<String>> entry : runs.entrySet()) {
+                List<String> args = new ArrayList<>(entry.getValue());
+                for (int i = 0; i < args.size() - 1; i++) {
+                    if (SNAPSHOT_FLAGS.contains(args.get(i))) args.set(i + 1, '"' + snapshots.get(args.get(i + 1)).getPath() + '"');
+                }
+                submitted.add(new QueuedRun(nextId(queue), entry.getKey(), priority, args));
+            }
+            queue.addAll(submitted);
+        });
+        RefreshScheduler.getInstance().markDirty();
+        if (tasks != null) tasks.submit(ProcessTasks.NO_PROCESS, "run-queue-admit", this::admit);
+        return submitted;
+    }
+
+    private static File snapshot(String path) throws IOException {
+        return SnapshotStore.getInstance().store(new File(path.replaceAll("\"", "")));
+    }
+
+    private long nextId(List<QueuedRun> runs) {
+        // submissions within the same millisecond are ordered by a later ID
+        lastId = Math.max(System.currentTimeMillis(), Math.max(lastId, runs.stream().mapToLong(QueuedRun::getId).max().orElse(0)) + 1);
+        return lastId;
+    }
+
+    public boolean cancel(QueuedRun run) {
+        boolean[] removed = new boolean[1];
+        modify(runs -> removed[0] = runs.removeIf(r -> r.getId() == run.getId()));
+        RefreshScheduler.getInstance().markDirty();
+        return removed[0];
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<ProcessStruct> processes = ProcessManager.getInstance().getProcesses();
+        Set<Long> alive = new HashSet<>();
+        double cpuPercent = 0;
+        for (ProcessStruct ps : processes) {
+            if (ps.getStatus() != ProcessStruct.ProcessStatus.ALIVE) continue;
+            alive.add(ps.getPid());
+            ResourceHistory history = ps.getResourceHistory();
+            ResourceHistory.Sample sample = history == null ? null : history.getLatest();
+            if (sample != null && now - sample.getTime() < 2L * ResourceSampler.SAMPLE_FREQ) cpuPercent += sample.getCpuPercent();
+        }
+        stats.recordCpuPercent(now, cpuPercent);
+        // a run that was alive at the last tick and is still listed has finished; dismissed ones are not counted
+        Map<Long, ProcessStruct> byPid = processes.stream().collect(Collectors.toMap(ProcessStruct::getPid, ps -> ps, (a, b) -> a));
+        for (long pid : wasAlive) {
+            if (!alive.contains(pid) && byPid.containsKey(pid)) stats.recordCompletion(now);
+        }
+        wasAlive = alive;
+
+        reload();
+        admit();
+    }
+
+    private void admit() {
+        // Admissions are decided under the queue lock, and the runs are launched once it is released, so a slow launch
+        // never holds up submissions or the GUI
+        synchronized (admitLock) {
+            long now = System.currentTimeMillis();
+            List<ProcessStruct> processes = ProcessManager.getInstance().getProcesses();
+            Set<Long> started = processes.stream().map(ps -> ps.getStartTime().getTime()).collect(Collectors.toSet());
+            long running = processes.stream().filter(ps -> ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE).count();
+            long freeKb = getAvailableMemoryKb();
+            long runKb = getRunMemoryKb(processes);
+            ProcessRegistry registry = ProcessManager.getInstance().getRegistry();
+
+            List<QueuedRun> admitted = new ArrayList<>();
+            try {
+                update((runs, launches) -> {
+                    // a launch is over once its output folder or exit is in the registry, from where every instance adopts it
+                    launches.removeIf(launch -> now - launch.admitted > LAUNCH_TIMEOUT || (launch.timestamp != null && isVisible(registry, launch.timestamp)));
+                    long pending = launches.stream().filter(launch -> launch.timestamp == null || !started.contains(launch.timestamp)).count();
+                    long slots = MAX_RUNS - running - pending;
+                    if (freeKb >= 0) {
+                        // runs still starting have not allocated their memory yet
+                        long fits = (freeKb - pending * runKb) / runKb;
+                        // one run is always allowed when nothing is running, so an estimate that is too high cannot stall the queue
+                        slots = Math.min(slots, running + pending == 0 ? Math.max(fits, 1) : fits);
+                    }
+                    for (; slots > 0 && !runs.isEmpty(); slots--) {
+                        QueuedRun run = runs.remove(0);
+                        // the run's snapshots count as used from its start, as it no longer holds them through the queue
+                        for (File snapshot : getSnapshots(run)) SnapshotStore.getInstance().touch(snapshot);
+                        launches.add(new Launch(run.getId(), now, null));
+                        admitted.add(run);
+                    }
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            if (admitted.isEmpty()) return;
+
+            Map<Long, Long> timestamps = new HashMap<>();
+            List<QueuedRun> failed = new ArrayList<>();
+            for (QueuedRun run : admitted) {
+                // after a failed launch, the rest are put back too, to be retried on the next tick
+                if (!failed.isEmpty()) {
+                    failed.add(run);
+                    continue;
+                }
+                try {
+                    long timestamp = ProcessManager.getInstance().runProcess(run.getName(), run.getArguments());
+                    timestamps.put(run.getId(), timestamp);
+                    stats.recordAdmission(timestamp - run.getId());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    failed.add(run);
+                }
+            }
+            Set<Long> failedIds = failed.stream().map(QueuedRun::getId).collect(Collectors.toSet());
+            try {
+                update((runs, launches) -> {
+                    // failed runs go back at the front of their priority
+                    runs.addAll(failed);
+                    launches.removeIf(launch -> failedIds.contains(launch.runId));
+                    launches.replaceAll(launch -> timestamps.containsKey(launch.runId) ? new Launch(launch.runId, launch.admitted, timestamps.get(launch.runId)) : launch);
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            RefreshScheduler.getInstance().markDirty();
+        }
+    }
+
+    private static boolean isVisible(ProcessRegistry registry, long timestamp) {
+        ProcessRegistry.Record record = registry.getByTimestamp(timestamp);
+        return record != null && (record.getDirectory() != null || record.getExitStatus() != null);
+    }
+
+    private long getRunMemoryKb(List<ProcessStruct> processes) {
+        // The largest peak RSS of any run still listed
+        long peak = -1;
+        for (ProcessStruct ps : processes) {
+            ResourceHistory history = ps.getResourceHistory();
+            if (history != null) peak = Math.max(peak, history.getPeakRssKb());
+            ExitReport report = ps.getExitReport();
+            if (report != null) peak = Math.max(peak, report.getMaxRssKb());
+        }
+        return peak > 0 ? peak : RUN_MEMORY_KB;
+    }
+
+    static long getAvailableMemoryKb() {
+        // Memory that can be allocated without swapping, or -1 if unknown
+        File meminfo = new File("/proc/meminfo");
+        if (meminfo.canRead()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(meminfo))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("MemAvailable:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            } catch (IOException | NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean)) return -1;
+        // getFreePhysicalMemorySize is deprecated from Java 14 in favour of getFreeMemorySize, which Java 11 lacks
+        String method = Runtime.version().feature() >= 14 ? "getFreeMemorySize" : "getFreePhysicalMemorySize";
+        try {
+            return (long) com.sun.management.OperatingSystemMXBean.class.getMethod(method).invoke(os) / 1024;
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private synchronized void reload() {
+        // Picks up runs submitted or cancelled by other instances
+        if (queueFile.lastModified() == loadedModified && queueFile.length() == loadedLength) return;
+        try {
+            locked(true, () -> queued = load());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        RefreshScheduler.getInstance().markDirty();
+    }
+
+    private void modify(Consumer<List<QueuedRun>> change) {
+        try {
+            update((runs, launches) -> change.accept(runs));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void update(Change change) throws IOException {
+        // Reads, changes and rewrites the queue under the file lock, so concurrent instances never lose each other's runs
+        locked(false, () -> {
+            List<QueuedRun> runs = new ArrayList<>(load());
+            List<Launch> launches = new ArrayList<>(loadedLaunches);
+            change.apply(runs, launches);
+            runs.sort(ORDER);
+            save(runs, launches);
+            queued = Collections.unmodifiableList(runs);
+        });
+    }
+
+    private void locked(boolean shared, Locked action) throws IOException {
+        // Called with this instance's monitor held, as the JVM allows one lock on the file at a time
+        FileLock fileLock = lock == null ? null : lock.lock(0, Long.MAX_VALUE, shared);
+        try {
+            action.run();
+        } finally {
+            if (fileLock != null) fileLock.release();
+        }
+    }
+
+    private List<QueuedRun> load() throws IOException {
+        List<QueuedRun> runs = new ArrayList<>();
+        loadedModified = queueFile.lastModified();
+        loadedLength = queueFile.length();
+        loadedLaunches = new ArrayList<>();
+        if (!queueFile.exists()) return runs;
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(queueFile), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String launchStr : properties.getProperty("launching", "").split(",")) {
+            if (launchStr.isEmpty()) continue;
+            try {
+                loadedLaunches.add(Launch.parse(launchStr));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                e.printStackTrace();
+            }
+        }
+        for (String idStr : properties.getProperty("ids", "").split(",")) {
+            if (idStr.isEmpty()) continue;
+            try {
+                long id = Long.parseLong(idStr);
+                Priority priority = Priority.valueOf(properties.getProperty(id + ".priority", Priority.NORMAL.name()));
+                List<String> arguments = new ArrayList<>();
+                int count = Integer.parseInt(properties.getProperty(id + ".args", "0"));
+                for (int i = 0; i < count; i++) arguments.add(properties.getProperty(id + ".arg." + i, ""));
+                runs.add(new QueuedRun(id, properties.getProperty(id + ".name", ""), priority, arguments));
+            } catch (IllegalArgumentException e) {
+                // a damaged entry is dropped rather than blocking the rest of the queue
+                e.printStackTrace();
+            }
+        }
+        runs.sort(ORDER);
+        return runs;
+    }
+
+    private void save(List<QueuedRun> runs, List<Launch> launches) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("ids", runs.stream().map(run -> String.valueOf(run.getId())).collect(Collectors.joining(",")));
+        properties.setProperty("launching", launches.stream().map(Launch::format).collect(Collectors.joining(",")));
+        for (QueuedRun run : runs) {
+            properties.setProperty(run.getId() + ".name", run.getName());
+            properties.setProperty(run.getId() + ".priority", run.getPriority().name());
+            properties.setProperty(run.getId() + ".args", String.valueOf(run.getArguments().size()));
+            for (int i = 0; i < run.getArguments().size(); i++) properties.setProperty(run.getId() + ".arg." + i, run.getArguments().get(i));
+        }
+        File tmp = new File(queueFile.getParentFile(), queueFile.getName() + ".tmp");
+        try (FileOutputStream fo = new FileOutputStream(tmp); Writer writer = new OutputStreamWriter(fo, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Run queue");
+            writer.flush();
+            fo.getFD().sync();
+        }
+        try {
+            Files.move(tmp.toPath(), queueFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), queueFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        loadedModified = queueFile.lastModified();
+        loadedLength = queueFile.length();
+        loadedLaunches = new ArrayList<>(launches);
+    }
+
+    private List<File> getSnapshots(QueuedRun run) {
+        List<File> snapshots = new ArrayList<>();
+        List<String> args = run.getArguments();
+        for (int i = 0; i < args.size() - 1; i++) {
+            if (!SNAPSHOT_FLAGS.contains(args.get(i))) continue;
+            File file = new File(args.get(i + 1).replaceAll("\"", "")).getAbsoluteFile();
+            if (SnapshotStore.getInstance().contains(file)) snapshots.add(file);
+        }
+        return snapshots;
+    }
+
+    private synchronized void removeUnusedSnapshots() {
+        // Under the lock, against the queue as it is on disk, so runs just queued by another instance keep theirs
+        try {
+            locked(false, () -> {
+                queued = load();
+                Set<File> referenced = new HashSet<>();
+                for (QueuedRun run : queued) referenced.addAll(getSnapshots(run));
+                SnapshotStore.getInstance().removeUnused(referenced, ORPHAN_AGE);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
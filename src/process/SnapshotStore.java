@@ -0,0 +1,96 @@
+package process;
+
+import util.Globals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/*
+ * Content-addressed copies of the files a run reads (config, database, input.xyz and interaction parameters), kept in
+ * snapshots/ as <sha256>.<extension>. A file is read once, and its snapshot is written through a temp file and an atomic
+ * rename unless one with the same content already exists, so identical submissions share a snapshot, a snapshot never
+ * changes once it is visible, and any number of instances can store the same file at once.
+ *
+ * Snapshots are not deleted when a run is done with them, as another submission may share them; removeUnused() deletes
+ * the ones no queued run refers to that have not been stored or used for some time.
+ */
+public class SnapshotStore {
+    private static SnapshotStore Instance = null;
+
+    public static synchronized SnapshotStore getInstance() {
+        if (Instance == null)
+            Instance = new SnapshotStore();
+        return Instance;
+    }
+
+    private final File dir = new File(Globals.snapshotDir).getAbsoluteFile();
+
+    private SnapshotStore() {
+    }
+
+    public File store(File source) throws IOException {
+        // the hash and the snapshot both come from this one read, so a file being rewritten cannot give a mismatched pair
+        byte[] content = Files.readAllBytes(source.toPath());
+        String name = source.getName();
+        int dot = name.lastIndexOf('.');
+        File snapshot = new File(dir, sha256(content) + (dot > 0 ? name.substring(dot) : ""));
+        if (snapshot.length() == content.length && snapshot.exists()) {
+            touch(snapshot);
+            return snapshot;
+        }
+        if (!dir.exists()) dir.mkdirs();
+        Path tmp = Files.createTempFile(dir.toPath(), "snapshot", ".tmp");
+        try {
+            try (FileOutputStream fo = new FileOutputStream(tmp.toFile())) {
+                fo.write(content);
+                fo.getFD().sync();
+            }
+            try {
+                Files.move(tmp, snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, snapshot.toPath());
+            }
+        } catch (IOException e) {
+            // another submission stored the same content first
+            if (!snapshot.exists()) throw e;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return snapshot;
+    }
+
+    public boolean contains(File file) {
+        return dir.equals(file.getAbsoluteFile().getParentFile());
+    }
+
+    // Marks a snapshot as used now, so it is not removed while a run that has just been started reads it
+    public void touch(File snapshot) {
+        snapshot.setLastModified(System.currentTimeMillis());
+    }
+
+    public void removeUnused(Set<File> referenced, long maxAge) {
+        // Snapshots (and temp files of interrupted stores) not referenced and not used for maxAge ms
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (!referenced.contains(file.getAbsoluteFile()) && now - file.lastModified() > maxAge) file.delete();
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
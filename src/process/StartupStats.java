@@ -0,0 +1,64 @@
+package process;
+
+// Durations of the startup phases of this instance: showing the UI, and reconnecting to the runs in the registry
+public class StartupStats {
+    private static StartupStats Instance = null;
+
+    public static synchronized StartupStats getInstance() {
+        if (Instance == null)
+            Instance = new StartupStats();
+        return Instance;
+    }
+
+    private long uiShownMillis = -1;
+    private int reconnected = 0;
+    private int reconnectThreads = 0;
+    private long reconnectMillis = -1;
+    // summed across the reconnect threads
+    private long discoveryMillis = 0;
+    private long loadMillis = 0;
+
+    private StartupStats() {
+    }
+
+    public synchronized void recordUiShown(long millis) {
+        uiShownMillis = millis;
+    }
+
+    synchronized void recordReconnect(int processes, int threads, long millis, long discoveryMillis, long loadMillis) {
+        reconnected = processes;
+        reconnectThreads = threads;
+        reconnectMillis = millis;
+        this.discoveryMillis = discoveryMillis;
+        this.loadMillis = loadMillis;
+    }
+
+    // Milliseconds from the start of main until the start page was shown, or -1 if it has not been yet
+    public synchronized long getUiShownMillis() {
+        return uiShownMillis;
+    }
+
+    public synchronized int getReconnected() {
+        return reconnected;
+    }
+
+    // Milliseconds until every registered run was reconnected, or -1 if there were none or it is still going
+    public synchronized long getReconnectMillis() {
+        return reconnectMillis;
+    }
+
+    // Milliseconds spent finding out whether runs are alive, and loading their files, summed across threads
+    public synchronized long getDiscoveryMillis() {
+        return discoveryMillis;
+    }
+
+    public synchronized long getLoadMillis() {
+        return loadMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("UI shown in %d ms; reconnected %d processes in %d ms (discovery %d ms, loading %d ms across %d threads)",
+                uiShownMillis, reconnected, reconnectMillis, discoveryMillis, loadMillis, reconnectThreads);
+    }
+}
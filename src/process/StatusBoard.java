@@ -0,0 +1,182 @@
+package process;
+
+import util.Globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Memory-mapped file (status.board) in which every running Wrapper publishes the live state of its TransRot run,
+ * so VTR can show elapsed time and notice exits with plain memory reads instead of querying the OS for each run.
+ *
+ * The file is a 64-byte header followed by SLOTS slots of 8 longs each (see the field offsets below). A slot is free
+ * once its heartbeat is older than RECLAIM_AFTER (or was never set), and a Wrapper claims it by compare-and-set on
+ * the heartbeat. Each field is read and written atomically; readers identify a run by its launch timestamp.
+ */
+public class StatusBoard {
+    public static final int SLOTS = 1024;
+    public static final int SLOT_SIZE = 64;
+    public static final int HEADER_SIZE = 64;
+    public static final long MAGIC = 0x5654524244524431L;
+    // Wrappers update their slot at least this often while their run is alive
+    public static final int HEARTBEAT_FREQ = 250;
+    // A slot whose heartbeat is older than this is not trusted, and the run is checked through the OS instead
+    public static final long STALE_AFTER = 2000;
+    public static final long RECLAIM_AFTER = 60 * 1000;
+
+    public static final long PHASE_STARTING = 1;
+    public static final long PHASE_RUNNING = 2;
+    public static final long PHASE_EXITED = 3;
+
+    // Field offsets within a slot; PID is informational
+    private static final int PID = 0;
+    private static final int LAUNCH_ID = 8;
+    private static final int HEARTBEAT = 16;
+    private static final int PHASE = 24;
+    private static final int EXIT_CODE = 32;
+    private static final int CPU_NANOS = 40;
+    private static final int RSS_KB = 48;
+    private static final int OUTPUT_LINES = 56;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static StatusBoard instance = null;
+
+    private final MappedByteBuffer buffer;
+
+    public static synchronized StatusBoard getInstance() {
+        // The board VTR reads from; mapped once, and empty if the file cannot be mapped
+        if (instance == null) {
+            instance = open(new File(Globals.statusBoardPath));
+            if (instance == null) instance = new StatusBoard(null);
+        }
+        return instance;
+    }
+
+    public static StatusBoard open(File file) {
+        // Returns null if the file cannot be mapped or belongs to something else
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping past the end of the file grows it, and the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) SLOTS * SLOT_SIZE);
+            long magic = (long) LONGS.compareAndExchange(buffer, 0, 0L, MAGIC);
+            if (magic != 0 && magic != MAGIC) return null;
+            return new StatusBoard(buffer);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private StatusBoard(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    private static int offset(int slot, int field) {
+        return HEADER_SIZE + slot * SLOT_SIZE + field;
+    }
+
+    private long get(int slot, int field) {
+        return (long) LONGS.getAcquire(buffer, offset(slot, field));
+    }
+
+    private void set(int slot, int field, long value) {
+        LONGS.setRelease(buffer, offset(slot, field), value);
+    }
+
+    public Slot claim(long pid, long launchId) {
+        // Returns null if every slot is held by a live run
+        if (buffer == null) return null;
+        long now = System.currentTimeMillis();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long heartbeat = get(slot, HEARTBEAT);
+            if (now - heartbeat < RECLAIM_AFTER) continue;
+            // only one claimer can move the heartbeat off the stale value it saw
+            if (!LONGS.compareAndSet(buffer, offset(slot, HEARTBEAT), heartbeat, now)) continue;
+            set(slot, LAUNCH_ID, 0);
+            set(slot, PID, pid);
+            set(slot, PHASE, PHASE_STARTING);
+            set(slot, EXIT_CODE, 0);
+            set(slot, CPU_NANOS, 0);
+            set(slot, RSS_KB, -1);
+            set(slot, OUTPUT_LINES, 0);
+            // written last, so a reader that finds the launch ID sees the slot fully reset
+            set(slot, LAUNCH_ID, launchId);
+            return new Slot(slot);
+        }
+        return null;
+    }
+
+    // Writer side, held by the Wrapper of one run
+    public class Slot {
+        private final int slot;
+
+        private Slot(int slot) {
+            this.slot = slot;
+        }
+
+        public void setPhase(long phase) {
+            set(slot, PHASE, phase);
+        }
+
+        public void addOutputLines(long lines) {
+            LONGS.getAndAdd(buffer, offset(slot, OUTPUT_LINES), lines);
+        }
+
+        public void update(long cpuNanos, long rssKb) {
+            set(slot, CPU_NANOS, cpuNanos);
+            set(slot, RSS_KB, rssKb);
+            set(slot, HEARTBEAT, System.currentTimeMillis());
+        }
+
+        public void exited(int code) {
+            set(slot, EXIT_CODE, code);
+            set(slot, PHASE, PHASE_EXITED);
+            set(slot, HEARTBEAT, System.currentTimeMillis());
+        }
+    }
+
+    // Reader side: slots are looked up by launch ID once, then re-checked on every read
+
+    public int find(long launchId) {
+        if (buffer == null) return -1;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (get(slot, LAUNCH_ID) == launchId) return slot;
+        }
+        return -1;
+    }
+
+    public boolean holds(int slot, long launchId) {
+        return buffer != null && slot >= 0 && get(slot, LAUNCH_ID) == launchId;
+    }
+
+    // Whether the slot's Wrapper is still publishing, or has published the run's exit
+    public boolean isFresh(int slot) {
+        return get(slot, PHASE) == PHASE_EXITED || System.currentTimeMillis() - get(slot, HEARTBEAT) < STALE_AFTER;
+    }
+
+    public long getPhase(int slot) {
+        return get(slot, PHASE);
+    }
+
+    public int getExitCode(int slot) {
+        return (int) get(slot, EXIT_CODE);
+    }
+
+    public long getCpuNanos(int slot) {
+        return get(slot, CPU_NANOS);
+    }
+
+    public long getRssKb(int slot) {
+        return get(slot, RSS_KB);
+    }
+
+    public long getOutputLines(int slot) {
+        return get(slot, OUTPUT_LINES);
+    }
+}
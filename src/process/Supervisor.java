@@ -0,0 +1,247 @@
+package process;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Optional background daemon that launches and owns TransRot runs, so their exit codes and log tails stay
+ * known while no VTR window is open. VTR talks to it with a line-based protocol over a loopback socket
+ * whose port and access token are published in the port file (see SupervisorClient).
+ *
+ *   AUTH <token>                                              must be the first line of every connection
+ *   PING                                                      -> OK <supervisor pid>
+ *   LAUNCH <timestamp> <cwd> <stdout> <stderr> <env> <cmd>... -> OK <pid> | ERR <message>
+ *   LIST                                                      -> RUN <pid> <timestamp> <exit code or -> ..., END
+ *   TAIL <pid> out|err <n>                                    -> LINE <text> ..., END | ERR <message>
+ *   FORGET <pid>[,<pid>...]                                   -> OK
+ *
+ * Fields are tab-separated; <env> is - or comma-separated KEY=VALUE pairs added to the child's environment.
+ * Children write straight to their log files (which the daemon tails), so runs outlive a supervisor restart
+ * and can still be monitored through their PIDs as before.
+ */
+public class Supervisor {
+    public static final int TAIL_LINES = 200;
+    public static final int TAIL_FREQ = 250;
+    // The daemon exits once it has had no live runs and no requests for this long
+    public static final long IDLE_EXIT = 10 * 60 * 1000;
+
+    private static class Run {
+        final long pid;
+        final long timestamp;
+        final LogLineReader stdoutReader;
+        final LogLineReader stderrReader;
+        final ArrayDeque<String> stdoutTail = new ArrayDeque<>();
+        final ArrayDeque<String> stderrTail = new ArrayDeque<>();
+        volatile Integer exitCode = null;
+        boolean closed = false;
+
+        Run(long pid, long timestamp, File stdout, File stderr) {
+            this.pid = pid;
+            this.timestamp = timestamp;
+            this.stdoutReader = new LogLineReader(stdout);
+            this.stderrReader = new LogLineReader(stderr);
+        }
+
+        synchronized void read() {
+            // The exit code is checked before reading, so the final read after exit sees all output
+            if (closed) return;
+            boolean exited = exitCode != null;
+            try {
+                stdoutReader.read((line, offset) -> append(stdoutTail, line));
+                stderrReader.read((line, offset) -> append(stderrTail, line));
+                if (exited) close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private static void append(ArrayDeque<String> tail, String line) {
+            if (tail.size() == TAIL_LINES) tail.removeFirst();
+            tail.addLast(line);
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                stdoutReader.close();
+                stderrReader.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        synchronized List<String> tail(boolean stderr, int n) {
+            ArrayDeque<String> tail = stderr ? stderrTail : stdoutTail;
+            List<String> lines = new ArrayList<>(tail);
+            return lines.subList(Math.max(0, lines.size() - n), lines.size());
+        }
+    }
+
+    private final Map<Long, Run> runs = new ConcurrentHashMap<>();
+    private final File portFile;
+    private final ServerSocket server;
+    private final String token;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    public static void main(String[] args) throws IOException {
+        // args: <port file>
+        File portFile = new File(args[0]);
+        File lockFile = new File(portFile.getPath() + ".lock");
+        FileChannel lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.tryLock();
+        if (lock == null) {
+            System.out.println("Supervisor already running");
+            return;
+        }
+        new Supervisor(portFile).serve();
+    }
+
+    private Supervisor(File portFile) throws IOException {
+        this.portFile = portFile;
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        this.token = sb.toString();
+        writePortFile();
+    }
+
+    private void writePortFile() throws IOException {
+        // Written to a temp file and renamed so clients never read a half-written port file;
+        // the token keeps other local users from driving the daemon, so the file is owner-only where possible
+        File tmp = new File(portFile.getPath() + ".tmp");
+        Files.write(tmp.toPath(), (server.getLocalPort() + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.setPosixFilePermissions(tmp.toPath(), PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException ignored) {}
+        Files.move(tmp.toPath(), portFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void serve() {
+        Thread tailThread = new Thread(this::tailLoop, "supervisor-tail");
+        tailThread.setDaemon(true);
+        tailThread.start();
+        System.out.printf("Supervisor %d listening on port %d%n", ProcessHandle.current().pid(), server.getLocalPort());
+        while (true) {
+            try {
+                Socket socket = server.accept();
+                Thread t = new Thread(() -> handle(socket), "supervisor-client");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private void tailLoop() {
+        while (true) {
+            runs.values().forEach(Run::read);
+            boolean anyAlive = runs.values().stream().anyMatch(run -> run.exitCode == null);
+            if (anyAlive) lastActivity = System.currentTimeMillis();
+            else if (System.currentTimeMillis() - lastActivity > IDLE_EXIT) {
+                portFile.delete();
+                System.out.println("Supervisor idle, exiting");
+                System.exit(0);
+            }
+            try {
+                Thread.sleep(TAIL_FREQ);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String auth = in.readLine();
+            if (auth == null || !auth.equals("AUTH\t" + token)) return;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lastActivity = System.currentTimeMillis();
+                String[] parts = line.split("\t");
+                try {
+                    respond(parts, out);
+                } catch (Exception e) {
+                    out.write("ERR\t" + e + "\n");
+                }
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    private void respond(String[] parts, BufferedWriter out) throws IOException {
+        switch (parts[0]) {
+            case "PING":
+                out.write("OK\t" + ProcessHandle.current().pid() + "\n");
+                break;
+            case "LAUNCH": {
+                long timestamp = Long.parseLong(parts[1]);
+                File stdout = new File(parts[3]);
+                File stderr = new File(parts[4]);
+                List<String> command = Arrays.asList(parts).subList(6, parts.length);
+                ProcessBuilder pb = new ProcessBuilder(command)
+                        .directory(new File(parts[2]))
+                        .redirectOutput(ProcessBuilder.Redirect.appendTo(stdout))
+                        .redirectError(ProcessBuilder.Redirect.appendTo(stderr));
+                if (!parts[5].equals("-")) {
+                    for (String pair : parts[5].split(",")) {
+                        int eq = pair.indexOf('=');
+                        if (eq > 0) pb.environment().put(pair.substring(0, eq), pair.substring(eq + 1));
+                    }
+                }
+                Process process = pb.start();
+                Run run = new Run(process.pid(), timestamp, stdout, stderr);
+                runs.put(run.pid, run);
+                // the daemon is the parent, so it learns the exact exit code without polling
+                process.onExit().thenAccept(p -> run.exitCode = p.exitValue());
+                out.write("OK\t" + run.pid + "\n");
+                break;
+            }
+            case "LIST":
+                for (Run run : runs.values()) {
+                    out.write("RUN\t" + run.pid + "\t" + run.timestamp + "\t" + (run.exitCode == null ? "-" : run.exitCode) + "\n");
+                }
+                out.write("END\n");
+                break;
+            case "TAIL": {
+                Run run = runs.get(Long.parseLong(parts[1]));
+                if (run == null) {
+                    out.write("ERR\tunknown pid\n");
+                    break;
+                }
+                for (String line : run.tail(parts[2].equals("err"), Integer.parseInt(parts[3]))) {
+                    out.write("LINE\t" + line + "\n");
+                }
+                out.write("END\n");
+                break;
+            }
+            case "FORGET":
+                for (String pid : parts[1].split(",")) {
+                    Run run = runs.remove(Long.parseLong(pid));
+                    if (run != null) run.close();
+                }
+                out.write("OK\n");
+                break;
+            default:
+                out.write("ERR\tunknown command\n");
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package process;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+// Connection to the Supervisor daemon; every call is one request/response round trip over loopback
+public class SupervisorClient implements Closeable {
+    public static final int CONNECT_TIMEOUT = 500;
+    public static final int READ_TIMEOUT = 5000;
+    public static final int SPAWN_TIMEOUT = 5000;
+
+    public static class RunInfo {
+        private final long pid;
+        private final long timestamp;
+        private final Integer exitCode;
+
+        public RunInfo(long pid, long timestamp, Integer exitCode) {
+            this.pid = pid;
+            this.timestamp = timestamp;
+            this.exitCode = exitCode;
+        }
+
+        public long getPid() {
+            return pid;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        // Exit code of a finished run, or null while it is still running
+        public Integer getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isAlive() {
+            return exitCode == null;
+        }
+    }
+
+    private final File portFile;
+    private Socket socket;
+    private BufferedReader in;
+    private BufferedWriter out;
+
+    private SupervisorClient(File portFile) {
+        this.portFile = portFile;
+    }
+
+    public static SupervisorClient connect(File portFile) {
+        // Returns null if no supervisor is running
+        SupervisorClient client = new SupervisorClient(portFile);
+        try {
+            client.open();
+            client.request("PING");
+            return client;
+        } catch (IOException e) {
+            client.close();
+            return null;
+        }
+    }
+
+    public static SupervisorClient connectOrSpawn(File portFile, File logFile) {
+        // Connects to the running supervisor, starting one in the background first if needed
+        SupervisorClient client = connect(portFile);
+        if (client != null) return client;
+        try {
+            List<String> command = new ArrayList<>();
+            if (!System.getProperty("os.name").toLowerCase().contains("win")) command.add("nohup");
+            command.addAll(List.of(ProcessHandle.current().info().command().orElse("java"), "-cp", System.getProperty("java.class.path"), Supervisor.class.getName(), portFile.getPath()));
+            new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                    .redirectErrorStream(true)
+                    .start();
+            long start = System.currentTimeMillis();
+            while (System.currentTimeMillis() - start < SPAWN_TIMEOUT) {
+                Thread.sleep(50);
+                client = connect(portFile);
+                if (client != null) return client;
+            }
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private void open() throws IOException {
+        List<String> lines = Files.readAllLines(portFile.toPath(), StandardCharsets.UTF_8);
+        if (lines.size() < 2) throw new IOException("Malformed supervisor port file");
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(lines.get(0).trim())), CONNECT_TIMEOUT);
+        socket.setSoTimeout(READ_TIMEOUT);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        out.write("AUTH\t" + lines.get(1).trim() + "\n");
+    }
+
+    private List<String> request(String line) throws IOException {
+        // Sends one request; multi-line responses are collected up to END, with the END line dropped
+        out.write(line + "\n");
+        out.flush();
+        List<String> response = new ArrayList<>();
+        while (true) {
+            String resp = in.readLine();
+            if (resp == null) throw new IOException("Supervisor closed the connection");
+            if (resp.startsWith("ERR\t")) throw new IOException("Supervisor: " + resp.substring(4));
+            if (resp.equals("END")) return response;
+            response.add(resp);
+            if (resp.startsWith("OK")) return response;
+        }
+    }
+
+    public synchronized long launch(long timestamp, File directory, File stdout, File stderr, Map<String, String> env, List<String> command) throws IOException {
+        // The request is one tab-separated line with the environment as comma-separated pairs, so values that would
+        // split it are refused rather than sent mangled
+        for (String field : List.of(directory.getAbsolutePath(), stdout.getAbsolutePath(), stderr.getAbsolutePath())) checkField(field, "Path");
+        for (String arg : command) checkField(arg, "Argument");
+        env.forEach((key, value) -> {
+            checkField(key, "Environment variable");
+            checkField(value, "Environment variable");
+            if (key.contains("=") || key.contains(",") || value.contains(",")) throw new IllegalArgumentException("Environment variable cannot be passed to the supervisor: " + key);
+        });
+        StringJoiner line = new StringJoiner("\t");
+        line.add("LAUNCH").add(Long.toString(timestamp)).add(directory.getAbsolutePath()).add(stdout.getAbsolutePath()).add(stderr.getAbsolutePath());
+        StringJoiner envPairs = new StringJoiner(",");
+        env.forEach((key, value) -> envPairs.add(key + "=" + value));
+        line.add(env.isEmpty() ? "-" : envPairs.toString());
+        command.forEach(line::add);
+        return Long.parseLong(request(line.toString()).get(0).split("\t")[1]);
+    }
+
+    private static void checkField(String field, String what) {
+        if (field.contains("\t") || field.contains("\n") || field.contains("\r"))
+            throw new IllegalArgumentException(what + " cannot be passed to the supervisor, as it contains a tab or line break: " + field);
+    }
+
+    public synchronized Map<Long, RunInfo> list() throws IOException {
+        Map<Long, RunInfo> runs = new HashMap<>();
+        for (String line : request("LIST")) {
+            String[] parts = line.split("\t");
+            long pid = Long.parseLong(parts[1]);
+            runs.put(pid, new RunInfo(pid, Long.parseLong(parts[2]), parts[3].equals("-") ? null : Integer.parseInt(parts[3])));
+        }
+        return runs;
+    }
+
+    public synchronized List<String> tail(long pid, boolean stderr, int n) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : request("TAIL\t" + pid + "\t" + (stderr ? "err" : "out") + "\t" + n)) {
+            lines.add(line.substring("LINE\t".length()));
+        }
+        return lines;
+    }
+
+    public synchronized void forget(Collection<Long> pids) throws IOException {
+        if (pids.isEmpty()) return;
+        StringJoiner joined = new StringJoiner(",");
+        pids.forEach(pid -> joined.add(Long.toString(pid)));
+        request("FORGET\t" + joined);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package process;
+
+import util.Globals;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Warm JVMs that run TransRot in-process (see Worker), so a short run does not pay for starting a JVM of its own.
+ * Up to WORKERS idle workers are kept started; a run takes one (or starts one if none is idle), and the worker goes back
+ * to the pool when the run is done, or exits if the pool is full or it has been used RUNS_PER_WORKER times.
+ *
+ * A pooled run is reported over LaunchReports like any other, under its launch timestamp in place of a PID; the
+ * registry records its worker's PID, which is what is inspected and signalled for it. Workers run in VTR's working
+ * directory, as runs launched with nohup do, so output folders are created in the same place.
+ *
+ * Workers are started on VTR's own JVM, whose version decides whether System.exit can be trapped (see Worker). If a
+ * worker reports that it cannot, the pool is given up and every run is launched in a JVM of its own.
+ */
+public class WorkerPool {
+    // Number of idle workers kept started (-Dvtr.workers=N); 0 launches every run in a JVM of its own
+    public static final int WORKERS = Integer.getInteger("vtr.workers", 0);
+    // How long a run's worker is kept for its PID report to pick up
+    public static final long PENDING_TIMEOUT = 60 * 1000;
+    // SecurityManager is only allowed with this flag from Java 18, which Java 12 and later accept, and not at all from 24
+    private static final boolean ALLOW_SECURITY_MANAGER = Runtime.version().feature() >= 12 && Runtime.version().feature() < 24;
+
+    private static class PooledJvm {
+        final Process process;
+        final Writer in;
+        // Launch timestamp of the run in progress, or null while idle
+        Long run = null;
+        long runStart;
+
+        PooledJvm(Process process) {
+            this.process = process;
+            this.in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static WorkerPool Instance = null;
+
+    public static synchronized WorkerPool getInstance() {
+        if (Instance == null)
+            Instance = new WorkerPool();
+        return Instance;
+    }
+
+    private final Deque<PooledJvm> idle = new ArrayDeque<>();
+    // Worker PID of each run launched, by launch timestamp, until its PID report arrives
+    private final Map<Long, Long> runWorkers = new ConcurrentHashMap<>();
+    // Set once a worker reports that it cannot trap System.exit
+    private volatile boolean unavailable = false;
+
+    private WorkerPool() {
+        synchronized (this) {
+            for (int i = 0; i < WORKERS; i++) {
+                try {
+                    idle.add(spawn());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    break;
+                }
+            }
+        }
+    }
+
+    // False once workers are known to be unable to run TransRot safely
+    public boolean isAvailable() {
+        return !unavailable;
+    }
+
+    // Hands a run to a worker and returns the worker's PID; reportAddress is the VTR_REPORT value the run reports to
+    public synchronized long run(long timestamp, String reportAddress, boolean stream, File stdoutFile, File stderrFile, List<String> arguments) throws IOException {
+        StringJoiner line = new StringJoiner("\t");
+        line.add("RUN").add(Long.toString(timestamp)).add(reportAddress).add(stream ? "1" : "0").add(stdoutFile.getAbsolutePath()).add(stderrFile.getAbsolutePath());
+        for (String arg : arguments) {
+            if (arg.contains("\t") || arg.contains("\n")) throw new IOException("Argument cannot be passed to a worker: " + arg);
+            line.add(arg);
+        }
+        long now = System.currentTimeMillis();
+        runWorkers.keySet().removeIf(launched -> now - launched > PENDING_TIMEOUT);
+
+        PooledJvm jvm = idle.poll();
+        while (jvm != null && !jvm.process.isAlive()) jvm = idle.poll();
+        if (jvm == null) jvm = spawn();
+        jvm.run = timestamp;
+        jvm.runStart = now;
+        runWorkers.put(timestamp, jvm.process.pid());
+        try {
+            jvm.in.write(line + "\n");
+            jvm.in.flush();
+        } catch (IOException e) {
+            runWorkers.remove(timestamp);
+            jvm.run = null;
+            jvm.process.destroy();
+            throw e;
+        }
+        return jvm.process.pid();
+    }
+
+    // Worker PID of a run launched through the pool, or null; each run's is returned once
+    public Long takeWorker(long timestamp) {
+        return runWorkers.remove(timestamp);
+    }
+
+    private PooledJvm spawn() throws IOException {
+        File log = new File(Globals.logsPath, "workers.log");
+        if (unavailable) throw new IOException("Workers are not used on this JVM");
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", Globals.wrapperPath, "Worker", Globals.jarPath));
+        if (ALLOW_SECURITY_MANAGER) command.add(1, "-Djava.security.manager=allow");
+        // like runs launched directly, a worker finishes its run if VTR is closed
+        if (!System.getProperty("os.name").toLowerCase().contains("win")) command.add(0, "nohup");
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+        PooledJvm jvm = new PooledJvm(process);
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        // a worker that cannot trap exits would be ended by any run that calls System.exit, so none is used
+        String trap = out.readLine();
+        if (!"TRAP\t1".equals(trap)) {
+            unavailable = true;
+            process.destroy();
+            throw new IOException((trap == null ? "A worker could not be started" : "System.exit cannot be trapped in a worker on this JVM") + "; see " + log);
+        }
+        Thread t = new Thread(() -> watch(jvm, out), "worker " + process.pid());
+        t.setDaemon(true);
+        t.start();
+        return jvm;
+    }
+
+    private void watch(PooledJvm jvm, BufferedReader out) {
+        // Reads a worker's DONE answers until it exits
+        try (out) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith("DONE\t")) done(jvm);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        exited(jvm);
+    }
+
+    private synchronized void done(PooledJvm jvm) {
+        jvm.run = null;
+        if (idle.size() < WORKERS) {
+            idle.add(jvm);
+            return;
+        }
+        // the pool is full; closing stdin makes the worker exit
+        try {
+            jvm.in.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void exited(PooledJvm jvm) {
+        int code;
+        try {
+            code = jvm.process.waitFor();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            return;
+        }
+        synchronized (this) {
+            idle.remove(jvm);
+            if (jvm.run != null) {
+                // the worker died mid-run (killed, or the run called System.exit where it cannot be trapped), so its
+                // exit is recorded here in its place; CPU time and memory are not known
+                File exitFile = new File(Globals.pidsPath, jvm.run + ".exit");
+                if (!exitFile.exists()) {
+                    try {
+                        new File(Globals.pidsPath).mkdirs();
+                        new ExitReport(code, System.currentTimeMillis() - jvm.runStart, -1, -1).write(exitFile);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+                jvm.run = null;
+            }
+            // a worker that retired or died is replaced
+            if (idle.size() < WORKERS && !unavailable) {
+                try {
+                    idle.add(spawn());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
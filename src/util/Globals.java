@@ -9,10 +9,15 @@ import java.awt.event.FocusListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -57,6 +62,32 @@ public class Globals {
         return getDurationString((long) (nanos / 1e9));
     }
 
+    public static String getSizeString(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double size = bytes;
+        int unit = -1;
+        while (size >= 1024 && unit < units.length - 1) {
+            size /= 1024;
+            unit++;
+        }
+        return String.format("%.1f %s", size, units[unit]);
+    }
+
+    // Replaces a file through a temp file and a rename, so a run starting meanwhile reads either the old or the new file
+    public static void writeFileAtomically(File file, String content) throws IOException {
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream fo = new FileOutputStream(tmp)) {
+            fo.write(content.getBytes());
+            fo.getFD().sync();
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     public static String getDatetime(Timestamp startTime) {
         LocalDateTime localDateTime = startTime.toLocalDateTime();
         DateTimeFormatter dtf = DateTimeFormatter.ofPattern("M/d/yyyy KK:mm:ss a");
@@ -154,6 +185,12 @@ public class Globals {
     public static String pidsPath;
     public static String wrapperPath;
     public static String jarPath;
+    public static String supervisorPath;
+    public static String statusBoardPath;
+    public static String queuePath;
+    public static String queueDir;
+    public static String campaignDir;
+    public static String snapshotDir;
 
     static {
         try {
@@ -166,6 +203,12 @@ public class Globals {
             pidsPath = new File(parentPath, "pids").getPath();
             wrapperPath = new File(parentPath, "wrapper.jar").getPath();
             jarPath = new File(parentPath, "TransRot.jar").getPath();
+            supervisorPath = new File(parentPath, "supervisor.port").getPath();
+            statusBoardPath = new File(parentPath, "status.board").getPath();
+            queuePath = new File(parentPath, "run_queue.properties").getPath();
+            queueDir = new File(parentPath, "queue").getPath();
+            campaignDir = new File(parentPath, "campaigns").getPath();
+            snapshotDir = new File(parentPath, "snapshots").getPath();
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
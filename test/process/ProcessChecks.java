@@ -0,0 +1,228 @@
+package process;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ * Functional checks for process monitoring (run with src compiled onto the classpath; exits 1 on failure):
+ *   javac -d out $(find src test -name "*.java") && java -Djava.awt.headless=true -cp out process.ProcessChecks
+ * Covers the registry journal, the shared task pool, bulk dismissal, two instances sharing one registry and the
+ * supervisor daemon. The children it starts use sleep and sh, so run it on Linux or macOS. Like ProcessStress it
+ * writes to the registry and log files next to the compiled classes, so run it from a scratch copy, not an install.
+ */
+public class ProcessChecks {
+    public static final int CHILDREN = 200;
+    public static final int DISMISSED = 500;
+    public static final int SHARED_LAUNCHES = 1000;
+    public static final int SUPERVISED = 20;
+    // Above any real PID, and clear of the range ProcessStress uses
+    public static final long FIRST_PID = 1L << 41;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("append")) {
+            appendShared(new File(args[1]), Long.parseLong(args[2]));
+            return;
+        }
+        ProcessManager pm = ProcessManager.getInstance();
+        journalRoundTrip();
+        sharedTaskPool(pm);
+        bulkDismiss(pm);
+        sharedRegistry();
+        supervisor();
+        System.out.println(failures == 0 ? "OK" : failures + " checks failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void check(boolean ok, String what) {
+        if (ok) return;
+        failures++;
+        System.out.println("FAILED: " + what);
+    }
+
+    private static boolean await(java.util.function.BooleanSupplier condition, long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    private static void journalRoundTrip() throws Exception {
+        // An old-style properties file is imported, values with tabs and newlines survive, a torn last record is
+        // dropped, and a compaction reloads to the same state
+        File dir = Files.createTempDirectory("registry").toFile();
+        File snapshot = new File(dir, "process_ids.properties");
+        try (FileWriter w = new FileWriter(snapshot)) {
+            w.write("pids=1,2\n1.timestamp=100\n1.name=old\n2.timestamp=200\n2.directory=/x\n");
+        }
+        ProcessRegistry registry = new ProcessRegistry(snapshot);
+        check(registry.getPids().equals(List.of(1L, 2L)) && "old".equals(registry.get(1).getName()), "an old-style registry file is imported");
+        registry.launched(3, 300);
+        registry.directoryResolved(3, "/a\tb\nc");
+        registry.named(3, "n");
+        registry.exited(1, "FINISHED");
+        registry.dismissed(2);
+        File journal = new File(dir, "process_ids.journal");
+        try (FileOutputStream fo = new FileOutputStream(journal, true)) {
+            fo.write("NAMED\t3\tpart".getBytes(StandardCharsets.UTF_8));
+        }
+        ProcessRegistry reloaded = new ProcessRegistry(snapshot);
+        check(reloaded.getPids().equals(List.of(1L, 3L)) && "/a\tb\nc".equals(reloaded.get(3).getDirectory()) && "n".equals(reloaded.get(3).getName())
+                && "FINISHED".equals(reloaded.get(1).getExitStatus()), "the journal reloads with escaped values and without the torn record");
+        for (int i = 0; i < ProcessRegistry.COMPACT_THRESHOLD; i++) reloaded.named(1, "m" + i);
+        check(await(() -> journal.length() < 100, 5000), "the journal is compacted once it grows past the threshold (" + journal.length() + " bytes)");
+        ProcessRegistry compacted = new ProcessRegistry(snapshot);
+        check(compacted.getPids().equals(List.of(1L, 3L)) && ("m" + (ProcessRegistry.COMPACT_THRESHOLD - 1)).equals(compacted.get(1).getName())
+                && Long.valueOf(100).equals(compacted.get(1).getTimestamp()) && "/a\tb\nc".equals(compacted.get(3).getDirectory()), "a compacted registry reloads to the same state");
+    }
+
+    private static void sharedTaskPool(ProcessManager pm) throws Exception {
+        // Watching many live runs takes a handful of pool threads, exits are noticed, and dismissal cancels the tasks
+        int tasksBefore = pm.getTasks().getTaskCount();
+        List<Process> children = new ArrayList<>();
+        List<ProcessStruct> runs = new ArrayList<>();
+        for (int i = 0; i < CHILDREN; i++) {
+            Process child = new ProcessBuilder("sleep", i < CHILDREN / 2 ? "1" : "30").start();
+            children.add(child);
+            pm.getRegistry().launched(child.pid(), 1000 + i);
+            ProcessStruct ps = new ProcessStruct(child.pid(), null);
+            pm.addProcess(ps);
+            runs.add(ps);
+        }
+        long poolThreads = Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().startsWith("process-task-")).count();
+        System.out.printf("watching %d runs on %d pool threads%n", CHILDREN, poolThreads);
+        check(poolThreads <= ProcessTasks.THREADS, "watching runs takes at most " + ProcessTasks.THREADS + " pool threads (" + poolThreads + ")");
+        boolean exited = await(() -> runs.subList(0, CHILDREN / 2).stream().allMatch(ps -> ps.getStatus() != ProcessStruct.ProcessStatus.ALIVE), 10000);
+        check(exited, "every run that exited is noticed");
+        check(runs.subList(CHILDREN / 2, CHILDREN).stream().allMatch(ps -> ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE), "runs still going stay alive");
+        pm.dismissProcesses(runs);
+        check(await(() -> pm.getTasks().getTaskCount() <= tasksBefore, 5000), "dismissing the runs cancels their tasks (" + pm.getTasks().getTaskCount() + " left)");
+        children.forEach(Process::destroy);
+    }
+
+    private static void bulkDismiss(ProcessManager pm) throws Exception {
+        // Dismissing many finished runs at once is one table event and one registry record, and their logs are deleted
+        List<ProcessStruct> runs = new ArrayList<>();
+        List<File> logs = new ArrayList<>();
+        for (int i = 0; i < DISMISSED; i++) {
+            long pid = FIRST_PID + i;
+            long timestamp = FIRST_PID + i;
+            pm.getRegistry().launched(pid, timestamp);
+            File log = new File(ProcessManager.logDir, String.format("stdout_%d.log", timestamp));
+            Files.write(log.toPath(), List.of("line"));
+            logs.add(log);
+            ProcessStruct ps = new ProcessStruct(pid, Collections.emptyList());
+            pm.addProcess(ps);
+            runs.add(ps);
+        }
+        ProcessTableModel table = new ProcessTableModel();
+        table.update(pm.getProcesses(), Collections.emptyList());
+        int rowsBefore = table.getRowCount();
+        int[] events = {0};
+        table.addTableModelListener(e -> events[0]++);
+        File journal = new File(util.Globals.propertiesPath.replaceFirst("\\.properties$", ".journal"));
+        long journalBefore = journal.length();
+        long start = System.nanoTime();
+        pm.dismissProcesses(runs);
+        table.update(pm.getProcesses(), Collections.emptyList());
+        System.out.printf("dismissed %d runs with logs in %d ms%n", DISMISSED, (System.nanoTime() - start) / 1000000);
+        check(table.getRowCount() == rowsBefore - DISMISSED && events[0] == 1, "bulk dismissal removes the rows in one table event (" + events[0] + ")");
+        byte[] bytes = Files.readAllBytes(journal.toPath());
+        long grown = 0;
+        for (int i = (int) Math.min(journalBefore, bytes.length); i < bytes.length; i++) {
+            if (bytes[i] == '\n') grown++;
+        }
+        // a compaction in between empties the journal, which leaves nothing to count
+        check(bytes.length < journalBefore || grown == 1, "bulk dismissal writes one registry record (" + grown + ")");
+        check(await(() -> logs.stream().noneMatch(File::exists), 5000), "the logs of dismissed runs are deleted");
+        ProcessRegistry reloaded = new ProcessRegistry(new File(util.Globals.propertiesPath));
+        check(reloaded.getPids().stream().noneMatch(pid -> pid >= FIRST_PID && pid < FIRST_PID + DISMISSED), "a reloaded registry has none of the dismissed runs");
+    }
+
+    private static void sharedRegistry() throws Exception {
+        // Two JVMs append to the same registry files at once, each dismissing half of its own launches, with
+        // compactions along the way; both and a fresh reload must end with every launch that was not dismissed
+        File dir = Files.createTempDirectory("registry").toFile();
+        File snapshot = new File(dir, "process_ids.properties");
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<Process> instances = new ArrayList<>();
+        for (long base : new long[] {FIRST_PID, FIRST_PID + SHARED_LAUNCHES}) {
+            instances.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ProcessChecks.class.getName(), "append", snapshot.getPath(), Long.toString(base))
+                    .inheritIO().start());
+        }
+        for (Process instance : instances) {
+            check(instance.waitFor(60, TimeUnit.SECONDS) && instance.exitValue() == 0, "an instance sharing the registry sees its own launches and the other's");
+        }
+        List<Long> pids = new ProcessRegistry(snapshot).getPids();
+        check(pids.size() == SHARED_LAUNCHES && pids.stream().allMatch(pid -> (pid - FIRST_PID) % 2 == 1), "a shared registry reloads with every undismissed launch (" + pids.size() + ")");
+    }
+
+    private static void appendShared(File snapshot, long base) throws Exception {
+        // The child side of sharedRegistry
+        ProcessRegistry registry = new ProcessRegistry(snapshot);
+        for (int i = 0; i < SHARED_LAUNCHES; i++) {
+            registry.launched(base + i, i);
+            if (i % 2 == 1) registry.dismissed(base + i - 1);
+            if (i % 10 == 0) registry.refresh();
+        }
+        // give the other instance time to finish before counting
+        boolean complete = await(() -> {
+            registry.refresh();
+            return registry.getPids().size() == SHARED_LAUNCHES;
+        }, 30000);
+        System.exit(complete ? 0 : 1);
+    }
+
+    private static void supervisor() throws Exception {
+        // The daemon starts on demand, reports exit codes, keeps output tails across reconnects, and forgets runs
+        File dir = Files.createTempDirectory("supervisor").toFile();
+        File port = new File(dir, "supervisor.port");
+        SupervisorClient client = SupervisorClient.connectOrSpawn(port, new File(dir, "supervisor.log"));
+        check(client != null, "the supervisor starts on demand");
+        if (client == null) return;
+        List<Long> pids = new ArrayList<>();
+        for (int i = 0; i < SUPERVISED; i++) {
+            File out = new File(dir, "out" + i);
+            File err = new File(dir, "err" + i);
+            pids.add(client.launch(1000 + i, dir, out, err, Collections.emptyMap(), List.of("sh", "-c",
+                    "for j in $(seq 1 300); do echo line $j; done; " + (i % 5 == 0 ? "echo oops >&2; exit 3" : "echo done"))));
+        }
+        client.close();
+        SupervisorClient again = SupervisorClient.connect(port);
+        check(again != null, "a running supervisor can be reconnected to");
+        if (again == null) return;
+        check(await(() -> {
+            try {
+                return again.list().values().stream().noneMatch(SupervisorClient.RunInfo::isAlive);
+            } catch (Exception e) {
+                return false;
+            }
+        }, 10000), "every supervised run ends");
+        Map<Long, SupervisorClient.RunInfo> runs = again.list();
+        List<Integer> codes = pids.stream().map(pid -> runs.get(pid).getExitCode()).collect(Collectors.toList());
+        check(codes.stream().filter(code -> code == 3).count() == SUPERVISED / 5 && codes.stream().filter(code -> code == 0).count() == SUPERVISED - SUPERVISED / 5,
+                "the supervisor reports exit codes exactly (" + codes + ")");
+        // tails are polled, so they may lag the exit a little
+        check(await(() -> {
+            try {
+                return again.tail(pids.get(1), false, 1).equals(List.of("done")) && again.tail(pids.get(0), true, 5).equals(List.of("oops"));
+            } catch (Exception e) {
+                return false;
+            }
+        }, 5000), "the supervisor keeps output tails");
+        again.forget(pids);
+        check(again.list().isEmpty(), "forgotten runs are no longer listed");
+        again.close();
+        // the daemon would otherwise wait out its idle timeout
+        ProcessHandle.current().descendants().filter(p -> p.info().commandLine().orElse("").contains(Supervisor.class.getName())).forEach(ProcessHandle::destroy);
+    }
+}
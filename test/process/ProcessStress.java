@@ -0,0 +1,181 @@
+package process;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+ * Stress check for the process registry (run with src compiled onto the classpath; exits 1 on failure):
+ *   javac -d out $(find src test -name "*.java") && java -Djava.awt.headless=true -cp out process.ProcessStress
+ * Fake processes (PIDs that are not running) are launched and dismissed from many threads at once while another
+ * thread keeps reading snapshots, then a PID is reused by a newer launch, and competing status transitions race.
+ * Finally, two registries share a set of files in a temporary folder while one of them dies mid-compaction.
+ * It writes to the registry files next to the compiled classes, so run it from a scratch copy, not an install.
+ */
+public class ProcessStress {
+    public static final int THREADS = 8;
+    public static final int PER_THREAD = 5000;
+    // Above any real PID, so no fake process is mistaken for a running one
+    public static final long FIRST_PID = 1L << 40;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        ProcessManager pm = ProcessManager.getInstance();
+        launchAndDismiss(pm);
+        reusedPid(pm);
+        lostRegistration(pm);
+        statusRaces();
+        interruptedCompaction();
+        System.out.println(failures == 0 ? "OK" : failures + " checks failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void check(boolean ok, String what) {
+        if (ok) return;
+        failures++;
+        System.out.println("FAILED: " + what);
+    }
+
+    private static void launchAndDismiss(ProcessManager pm) throws Exception {
+        // Every thread launches its fake processes, registers each one twice (only the first may be tracked) and
+        // dismisses every other one; snapshots must never hold a PID twice
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicLong snapshots = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                Set<Long> seen = new HashSet<>();
+                for (ProcessStruct ps : pm.getProcesses()) {
+                    if (!seen.add(ps.getPid())) duplicates.incrementAndGet();
+                }
+                snapshots.incrementAndGet();
+            }
+        });
+        reader.start();
+
+        long start = System.nanoTime();
+        long launchTime = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long first = FIRST_PID + (long) t * PER_THREAD;
+            results.add(pool.submit(() -> {
+                int tracked = 0;
+                for (int i = 0; i < PER_THREAD; i++) {
+                    long pid = first + i;
+                    pm.getRegistry().launched(pid, launchTime);
+                    ProcessStruct ps = new ProcessStruct(pid, Collections.emptyList());
+                    if (pm.addProcess(ps)) tracked++;
+                    if (pm.addProcess(new ProcessStruct(pid, Collections.emptyList()))) tracked++;
+                    if (i % 2 == 0) pm.dismissProcess(ps);
+                }
+                return tracked;
+            }));
+        }
+        int tracked = 0;
+        for (Future<Integer> result : results) tracked += result.get();
+        pool.shutdown();
+        done.set(true);
+        reader.join();
+
+        long mine = pm.getProcesses().stream().filter(ps -> ps.getPid() >= FIRST_PID).count();
+        System.out.printf("launched and dismissed %d fake processes on %d threads in %d ms; %d snapshots read%n",
+                THREADS * PER_THREAD, THREADS, (System.nanoTime() - start) / 1000000, snapshots.get());
+        check(tracked == THREADS * PER_THREAD, "each launch tracked once (" + tracked + ")");
+        check(mine == THREADS * PER_THREAD / 2, "undismissed processes remain (" + mine + ")");
+        check(duplicates.get() == 0, "no snapshot lists a PID twice (" + duplicates.get() + ")");
+        pm.dismissProcesses(pm.getProcesses().stream().filter(ps -> ps.getPid() >= FIRST_PID).collect(Collectors.toList()));
+    }
+
+    private static void reusedPid(ProcessManager pm) {
+        // A newer launch under a PID still listed for an old run replaces it, in the Process Monitor too; an older one
+        // does not
+        long pid = FIRST_PID - 1;
+        ProcessTableModel table = new ProcessTableModel();
+        pm.getRegistry().launched(pid, 1000);
+        ProcessStruct old = new ProcessStruct(pid, Collections.emptyList());
+        check(pm.addProcess(old), "first run under a PID is tracked");
+        table.update(pm.getProcesses(), Collections.emptyList());
+        pm.getRegistry().launched(pid, 2000);
+        ProcessStruct reused = new ProcessStruct(pid, Collections.emptyList());
+        check(pm.addProcess(reused) && pm.getProcess(pid) == reused, "a run under a reused PID replaces the old one");
+        table.update(pm.getProcesses(), Collections.emptyList());
+        List<ProcessStruct> rows = table.getProcesses().stream().filter(ps -> ps.getPid() == pid).collect(Collectors.toList());
+        check(rows.size() == 1 && rows.get(0) == reused, "the table row holds the run under a reused PID");
+        check(!pm.addProcess(old) && pm.getProcess(pid) == reused, "an older run does not replace a newer one");
+        check(pm.getProcesses().stream().filter(ps -> ps.getPid() == pid).count() == 1, "a reused PID is listed once");
+        pm.dismissProcesses(Collections.singletonList(reused));
+    }
+
+    private static void lostRegistration(ProcessManager pm) {
+        // A struct that loses the race to track a live PID schedules no tasks under it
+        long pid = ProcessHandle.current().pid();
+        pm.getRegistry().launched(pid, 3000);
+        ProcessStruct winner = new ProcessStruct(pid, null);
+        check(pm.addProcess(winner), "the first struct for a live PID is tracked");
+        int tasks = pm.getTasks().getTaskCount();
+        ProcessStruct loser = new ProcessStruct(pid, null);
+        check(!pm.addProcess(loser) && pm.getProcess(pid) == winner, "a second struct for the same launch is not tracked");
+        check(pm.getTasks().getTaskCount() == tasks, "a struct that is not tracked starts no tasks");
+        pm.dismissProcesses(Collections.singletonList(winner));
+    }
+
+    private static void statusRaces() throws Exception {
+        // Of several threads moving a live run out of ALIVE at once, exactly one wins, and nothing moves it back
+        int wrong = 0;
+        ProcessStruct.ProcessStatus[] targets = {ProcessStruct.ProcessStatus.FINISHED, ProcessStruct.ProcessStatus.RUNTIME_ERROR,
+                ProcessStruct.ProcessStatus.INIT_ERROR, ProcessStruct.ProcessStatus.FINISHED};
+        for (int round = 0; round < 2000; round++) {
+            // this JVM is alive, so the run starts ALIVE
+            ProcessStruct ps = new ProcessStruct(ProcessHandle.current().pid(), null);
+            AtomicInteger wins = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (ProcessStruct.ProcessStatus target : targets) {
+                Thread t = new Thread(() -> {
+                    try {
+                        go.await();
+                        if (ps.setStatus(ProcessStruct.ProcessStatus.ALIVE, target)) wins.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                });
+                t.start();
+                threads.add(t);
+            }
+            go.countDown();
+            for (Thread t : threads) t.join();
+            if (wins.get() != 1 || ps.getStatus() == ProcessStruct.ProcessStatus.ALIVE) wrong++;
+            if (ps.setStatus(ps.getStatus(), ProcessStruct.ProcessStatus.ALIVE)) wrong++;
+            ProcessManager.getInstance().getTasks().cancel(ps.getPid());
+        }
+        System.out.println("2000 status races run");
+        check(wrong == 0, "status races have exactly one winner (" + wrong + " wrong)");
+    }
+
+    private static void interruptedCompaction() throws Exception {
+        // An instance that dies after truncating the journal but before bumping the generation must not leave another
+        // instance reading from past the end of the journal, missing everything appended afterwards
+        File dir = Files.createTempDirectory("registry").toFile();
+        File snapshot = new File(dir, "process_ids.properties");
+        ProcessRegistry survivor = new ProcessRegistry(snapshot);
+        for (long pid = 1; pid <= 100; pid++) survivor.launched(pid, pid);
+        ProcessRegistry dying = new ProcessRegistry(snapshot);
+        byte[] generation = Files.readAllBytes(new File(dir, "process_ids.lock").toPath());
+        dying.compact();
+        Files.write(new File(dir, "process_ids.lock").toPath(), generation);
+        ProcessRegistry restarted = new ProcessRegistry(snapshot);
+        restarted.launched(101, 101);
+        restarted.dismissed(1);
+        survivor.refresh();
+        check(survivor.get(101) != null, "a launch appended after an interrupted compaction is seen");
+        check(survivor.get(1) == null && survivor.getPids().size() == 100, "the registry matches the files after an interrupted compaction ("
+                + survivor.getPids().size() + ")");
+    }
+}